@@ -0,0 +1,230 @@
+/**
+ * American Flag Sort（MSD Radix Sort の in-place 版）
+ * - 上の桁から8bitずつ見て、256個のバケツに分ける
+ * - 分けるときは作業用配列を使わず、要素を「入るべきバケツの空き位置」と交換していく
+ * - 分けたバケツごとに次の桁で同じことをする（最大4段）
+ * - 全要素が同じバケツに入る桁は飛ばす。小さい範囲は挿入ソート
+ */
+public class AmericanFlagSort implements StepSortable {
+
+    private static final int BITS = 8;
+    private static final int RADIX = 1 << BITS;
+    private static final int TOP_SHIFT = Integer.SIZE - BITS;
+    private static final int LEVELS = Integer.SIZE / BITS;
+    private static final int INSERTION_THRESHOLD = 32;
+
+    @Override
+    public String name() {
+        return "American Flag Sort (MSD)";
+    }
+
+    @Override
+    public void sort(int[] arr) {
+        sort(arr, OpCounter.NONE);
+    }
+
+    /**
+     * reads はヒストグラムと振り分けでそれぞれ範囲の長さぶん
+     * （振り分けは1回読むごとに「その位置が確定して進む」か「交換で交換先の位置が確定する」のどちらかなので、
+     *   読む回数は範囲の長さと同じ。ループの中では交換だけ数える）
+     */
+    @Override
+    public void sort(int[] arr, OpCounter counter) {
+        if (arr.length <= 1) return;
+        // 段ごとの作業用（ヒストグラム・バケツの境目・次に置く位置）を使い回す
+        int[][] bounds = new int[LEVELS][RADIX + 1];
+        int[][] next = new int[LEVELS][RADIX];
+        OpCounts ops = new OpCounts();
+        sort(arr, 0, arr.length, TOP_SHIFT, bounds, next, ops);
+        counter.compares(ops.compares);
+        counter.swaps(ops.swaps);
+        counter.reads(ops.reads);
+        counter.writes(ops.writes);
+    }
+
+    /**
+     * a[lo, hi) を shift の桁で分けてから、各バケツを次の桁で並べる
+     */
+    private static void sort(int[] a, int lo, int hi, int shift, int[][] bounds, int[][] next, OpCounts ops) {
+        while (true) {
+            if (hi - lo <= INSERTION_THRESHOLD) {
+                insertionSort(a, lo, hi, ops);
+                return;
+            }
+
+            int level = (TOP_SHIFT - shift) / BITS;
+            int[] bound = bounds[level];
+            int[] nxt = next[level];
+
+            java.util.Arrays.fill(bound, 0);
+            for (int i = lo; i < hi; i++) bound[RadixSort.digit(a[i], shift) + 1]++;
+            ops.reads += hi - lo;
+
+            // 全要素が同じバケツ → この桁は飛ばして次の桁へ
+            if (isSingleBucket(bound, hi - lo)) {
+                if (shift == 0) return;
+                shift -= BITS;
+                continue;
+            }
+
+            bound[0] = lo;
+            for (int b = 0; b < RADIX; b++) {
+                bound[b + 1] += bound[b];
+                nxt[b] = bound[b];
+            }
+
+            // 各バケツの空き位置に、入るべき要素を交換で持ってくる
+            long swaps = 0;
+            for (int b = 0; b < RADIX; b++) {
+                int end = bound[b + 1];
+                while (nxt[b] < end) {
+                    int v = a[nxt[b]];
+                    int d = RadixSort.digit(v, shift);
+                    if (d == b) {
+                        nxt[b]++;
+                    } else {
+                        int j = nxt[d]++;
+                        a[nxt[b]] = a[j];
+                        a[j] = v;
+                        swaps++;
+                    }
+                }
+            }
+            ops.swaps += swaps;
+            ops.reads += hi - lo;
+
+            if (shift == 0) return;
+            for (int b = 0; b < RADIX; b++) {
+                if (bound[b + 1] - bound[b] > 1) {
+                    sort(a, bound[b], bound[b + 1], shift - BITS, bounds, next, ops);
+                }
+            }
+            return;
+        }
+    }
+
+    // bound[1..RADIX] にヒストグラムが入っている状態で使う
+    private static boolean isSingleBucket(int[] bound, int n) {
+        for (int b = 1; b <= RADIX; b++) {
+            if (bound[b] == n) return true;
+            if (bound[b] != 0) return false;
+        }
+        return false;
+    }
+
+    private static void insertionSort(int[] a, int lo, int hi, OpCounts ops) {
+        for (int i = lo + 1; i < hi; i++) {
+            int v = a[i];
+            int j = i - 1;
+            while (j >= lo && a[j] > v) {
+                a[j + 1] = a[j];
+                j--;
+            }
+            a[j + 1] = v;
+
+            int shifted = i - 1 - j;
+            ops.compares += shifted + (j >= lo ? 1 : 0);
+            ops.writes += shifted + 1;
+        }
+    }
+
+    // ---------------- GUI用 ----------------
+
+    @Override
+    public StepCursor cursor(int[] input) {
+        return SortEvents.steps(this, input).cursor();
+    }
+
+    /**
+     * sort と同じ手順を記録する
+     * - range(lo, hi-1) : いま分けている範囲
+     * - read(i)         : ヒストグラム作成、または「この要素はどのバケツか」の確認
+     * - swap(i, j)      : 入るべきバケツへの交換
+     * - 挿入ソートは compare → 隣どうしの swap
+     */
+    @Override
+    public void record(int[] input, StepSink steps) {
+        int[] arr = input.clone();
+        if (arr.length <= 1) return;
+
+        int[][] bounds = new int[LEVELS][RADIX + 1];
+        int[][] next = new int[LEVELS][RADIX];
+        sortWithSteps(arr, 0, arr.length, TOP_SHIFT, bounds, next, steps);
+
+        steps.range(-1, -1);
+        steps.compare(-1, -1);
+    }
+
+    private static void sortWithSteps(int[] a, int lo, int hi, int shift, int[][] bounds, int[][] next, StepSink s) {
+        while (true) {
+            if (hi - lo <= INSERTION_THRESHOLD) {
+                insertionSortWithSteps(a, lo, hi, s);
+                return;
+            }
+
+            int level = (TOP_SHIFT - shift) / BITS;
+            int[] bound = bounds[level];
+            int[] nxt = next[level];
+
+            s.range(lo, hi - 1);
+            java.util.Arrays.fill(bound, 0);
+            for (int i = lo; i < hi; i++) {
+                s.read(i);
+                bound[RadixSort.digit(a[i], shift) + 1]++;
+            }
+
+            if (isSingleBucket(bound, hi - lo)) {
+                if (shift == 0) return;
+                shift -= BITS;
+                continue;
+            }
+
+            bound[0] = lo;
+            for (int b = 0; b < RADIX; b++) {
+                bound[b + 1] += bound[b];
+                nxt[b] = bound[b];
+            }
+
+            for (int b = 0; b < RADIX; b++) {
+                int end = bound[b + 1];
+                while (nxt[b] < end) {
+                    int i = nxt[b];
+                    s.read(i);
+                    int v = a[i];
+                    int d = RadixSort.digit(v, shift);
+                    if (d == b) {
+                        nxt[b]++;
+                    } else {
+                        int j = nxt[d]++;
+                        a[i] = a[j];
+                        a[j] = v;
+                        s.swap(i, j);
+                    }
+                }
+            }
+
+            if (shift == 0) return;
+            for (int b = 0; b < RADIX; b++) {
+                if (bound[b + 1] - bound[b] > 1) {
+                    sortWithSteps(a, bound[b], bound[b + 1], shift - BITS, bounds, next, s);
+                }
+            }
+            return;
+        }
+    }
+
+    private static void insertionSortWithSteps(int[] a, int lo, int hi, StepSink s) {
+        if (hi - lo <= 1) return;
+        s.range(lo, hi - 1);
+        for (int i = lo + 1; i < hi; i++) {
+            for (int j = i - 1; j >= lo; j--) {
+                s.compare(j, j + 1);
+                if (a[j] <= a[j + 1]) break;
+                int tmp = a[j];
+                a[j] = a[j + 1];
+                a[j + 1] = tmp;
+                s.swap(j, j + 1);
+            }
+        }
+    }
+}
@@ -1,6 +1,3 @@
-import java.util.ArrayList;
-import java.util.List;
-
 public class BubbleSort implements StepSortable {
 
     @Override
@@ -11,47 +8,105 @@ public class BubbleSort implements StepSortable {
     // テスト用（一気にソート）
     @Override
     public void sort(int[] arr) {
+        sort(arr, OpCounter.NONE);
+    }
+
+    @Override
+    public void sort(int[] arr, OpCounter counter) {
         int n = arr.length;
+        long swaps = 0;
         for (int i = 0; i < n - 1; i++) {
             for (int j = 0; j < n - 1 - i; j++) {
                 if (arr[j] > arr[j + 1]) {
                     int tmp = arr[j];
                     arr[j] = arr[j + 1];
                     arr[j + 1] = tmp;
+                    swaps++;
                 }
             }
         }
+        // 比較は入力によらず n(n-1)/2 回
+        counter.compares((long) n * (n - 1) / 2);
+        counter.swaps(swaps);
     }
 
-    // GUI用（途中経過つき）
+    // GUI用（途中経過を1ステップずつ作る）
     @Override
-    public List<SortStep> steps(int[] input) {
-        int[] arr = input.clone();          // 元データ破壊防止
-        List<SortStep> steps = new ArrayList<>();
-        int n = arr.length;
+    public StepCursor cursor(int[] input) {
+        return new Cursor(input.clone());   // 元データ破壊防止
+    }
 
-        // 初期状態
-        steps.add(new SortStep(arr.clone(), -1, -1, -1, -1));
+    /**
+     * 二重ループを「いまどこまで進んだか（i, j, phase）」で表した状態機械
+     */
+    private static final class Cursor implements StepCursor {
+        private static final int START = 0;     // 初期状態
+        private static final int COMPARE = 1;   // j と j+1 を比較
+        private static final int SWAP = 2;      // j と j+1 を交換
+        private static final int FINISH = 3;    // 完成状態
+        private static final int DONE = 4;
 
-        for (int i = 0; i < n - 1; i++) {
-            for (int j = 0; j < n - 1 - i; j++) {
+        private final int[] arr;
+        private final int n;
+        private int i = 0;
+        private int j = 0;
+        private int phase = START;
 
-                // 比較中の2点を表示
-                steps.add(new SortStep(arr.clone(), j, j + 1, -1, -1));
+        Cursor(int[] arr) {
+            this.arr = arr;
+            this.n = arr.length;
+        }
 
-                if (arr[j] > arr[j + 1]) {
+        @Override
+        public boolean hasNext() {
+            return phase != DONE;
+        }
+
+        @Override
+        public void next(StepSink sink) {
+            switch (phase) {
+                case START -> {
+                    sink.compare(-1, -1);
+                    phase = (n >= 2) ? COMPARE : FINISH;
+                }
+                case COMPARE -> {
+                    // 比較中の2点を表示
+                    sink.compare(j, j + 1);
+                    if (arr[j] > arr[j + 1]) {
+                        phase = SWAP;
+                    } else {
+                        moveNext();
+                    }
+                }
+                case SWAP -> {
                     int tmp = arr[j];
                     arr[j] = arr[j + 1];
                     arr[j + 1] = tmp;
-
-                    // 交換後の状態を表示
-                    steps.add(new SortStep(arr.clone(), j, j + 1, -1, -1));
+                    sink.swap(j, j + 1);
+                    moveNext();
                 }
+                case FINISH -> {
+                    sink.compare(-1, -1);
+                    phase = DONE;
+                }
+                default -> throw new IllegalStateException("no more steps");
             }
         }
 
-        // 完成状態
-        steps.add(new SortStep(arr.clone(), -1, -1, -1, -1));
-        return steps;
+        private void moveNext() {
+            j++;
+            if (j >= n - 1 - i) {
+                i++;
+                j = 0;
+            }
+            phase = (i < n - 1) ? COMPARE : FINISH;
+        }
+
+        @Override
+        public long estimatedSteps() {
+            // 比較 n(n-1)/2 回 + 交換はその半分くらい（ランダム入力の期待値）
+            long compares = (long) n * (n - 1) / 2;
+            return compares + compares / 2 + 2;
+        }
     }
 }
@@ -0,0 +1,127 @@
+import java.util.Arrays;
+
+/**
+ * Counting Sort（値ごとの個数を数えて、小さい値から書き戻す）
+ * - 最初の1パスで最小値・最大値を調べ、値の幅 k = max - min + 1 を求める
+ * - k が小さければ（重複が多い・値の種類が少ない）ヒストグラムを作って O(n + k) で並べる
+ * - k が大きすぎるとヒストグラムのほうが重くなるので、Radix Sort に任せる
+ */
+public class CountingSort implements StepSortable {
+
+    private static final int MIN_RANGE_LIMIT = 1 << 8;      // n が小さくてもこの幅までは数える
+    private static final int MAX_RANGE_LIMIT = 1 << 22;     // ヒストグラムは最大 16MB まで
+
+    private final RadixSort fallback = new RadixSort();
+
+    @Override
+    public String name() {
+        return "Counting Sort";
+    }
+
+    @Override
+    public void sort(int[] arr) {
+        sort(arr, OpCounter.NONE);
+    }
+
+    /**
+     * 比較はしない。最小値・最大値とヒストグラムで n 回ずつ読み、書き戻しで n 回書く
+     */
+    @Override
+    public void sort(int[] arr, OpCounter counter) {
+        int n = arr.length;
+        if (n <= 1) return;
+
+        int min = arr[0];
+        int max = arr[0];
+        for (int i = 1; i < n; i++) {
+            int v = arr[i];
+            if (v < min) {
+                min = v;
+            } else if (v > max) {
+                max = v;
+            }
+        }
+
+        counter.reads(n);
+
+        long range = (long) max - min + 1;
+        if (range == 1) return;
+        if (!isSmallRange(range, n)) {
+            fallback.sort(arr, counter);
+            return;
+        }
+
+        int[] count = new int[(int) range];
+        for (int v : arr) count[v - min]++;
+        counter.reads(n);
+
+        int k = 0;
+        for (int b = 0; b < count.length; b++) {
+            int c = count[b];
+            if (c == 0) continue;
+            Arrays.fill(arr, k, k + c, b + min);
+            k += c;
+        }
+        counter.writes(n);
+    }
+
+    // 幅が n 程度までなら、ヒストグラムの確保・走査が要素の処理より重くならない
+    private static boolean isSmallRange(long range, int n) {
+        return range <= Math.min(MAX_RANGE_LIMIT, Math.max(MIN_RANGE_LIMIT, n));
+    }
+
+    // ---------------- GUI用 ----------------
+
+    @Override
+    public StepCursor cursor(int[] input) {
+        return SortEvents.steps(this, input).cursor();
+    }
+
+    /**
+     * sort と同じ手順を記録する
+     * - 1パス目  : read(i) で最小値・最大値を調べる
+     * - 2パス目  : read(i) でヒストグラムを作る
+     * - 書き戻し : range で同じ値が入る区間を示し、write(k, v) で左から埋めていく
+     * 幅が大きいときは Radix Sort の手順をそのまま使う
+     */
+    @Override
+    public void record(int[] input, StepSink steps) {
+        int[] arr = input.clone();
+        int n = arr.length;
+        if (n <= 1) return;
+
+        int min = arr[0];
+        int max = arr[0];
+        for (int v : arr) {
+            min = Math.min(min, v);
+            max = Math.max(max, v);
+        }
+        long range = (long) max - min + 1;
+        if (range > 1 && !isSmallRange(range, n)) {
+            fallback.record(input, steps);
+            return;
+        }
+
+        steps.range(0, n - 1);
+        for (int i = 0; i < n; i++) steps.read(i);
+
+        if (range > 1) {
+            int[] count = new int[(int) range];
+            for (int i = 0; i < n; i++) {
+                steps.read(i);
+                count[arr[i] - min]++;
+            }
+
+            int k = 0;
+            for (int b = 0; b < count.length; b++) {
+                int c = count[b];
+                if (c == 0) continue;
+                steps.range(k, k + c - 1);
+                for (int end = k + c; k < end; k++) steps.write(k, b + min);
+            }
+        }
+
+        steps.range(-1, -1);
+        steps.compare(-1, -1);
+    }
+}
@@ -1,3 +1,5 @@
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.Random;
 
 public class DataGenerator {
@@ -68,6 +70,119 @@ public class DataGenerator {
         return arr;
     }
 
+    /**
+     * long[] 版（LongSorter 用）。値は 64bit のタイムスタンプ（ns）くらいの大きさにする
+     * RANDOM は long 全体から取る（負の数も上の桁もばらばら）
+     */
+    public long[] generateLongs(Pattern pattern, int size, long seed) {
+        if (size < 0) throw new IllegalArgumentException("size must be non-negative");
+
+        long[] arr = new long[size];
+        Random rand = new Random(seed);
+        long base = 1_700_000_000_000_000_000L;      // 2023年ごろのエポックからの ns
+
+        switch (pattern) {
+            case ASCENDING -> {
+                for (int i = 0; i < size; i++) arr[i] = base + i * 1_000L;
+            }
+            case DESCENDING -> {
+                for (int i = 0; i < size; i++) arr[i] = base + (size - i) * 1_000L;
+            }
+            case ALMOST_SORTED -> {
+                for (int i = 0; i < size; i++) arr[i] = base + i * 1_000L;
+                for (int k = 0; size > 0 && k < Math.max(1, size / 10); k++) {
+                    int i = rand.nextInt(size);
+                    int j = rand.nextInt(size);
+                    long tmp = arr[i];
+                    arr[i] = arr[j];
+                    arr[j] = tmp;
+                }
+            }
+            case MANY_DUPLICATES -> {
+                for (int i = 0; i < size; i++) arr[i] = base + rand.nextInt(10);
+            }
+            default -> {
+                for (int i = 0; i < size; i++) arr[i] = rand.nextLong();
+            }
+        }
+        return arr;
+    }
+
+    // 並び順の端にある double（NaN は符号付きのものも入れる）
+    private static final double[] SPECIAL_DOUBLES = {
+            Double.NaN, Double.longBitsToDouble(0xFFF8_0000_0000_0001L), -0.0, 0.0,
+            Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY,
+            Double.MIN_VALUE, -Double.MIN_VALUE, Double.MAX_VALUE, -Double.MAX_VALUE
+    };
+
+    /**
+     * double[] 版（DoubleSorter 用）
+     * RANDOM は正負の小数に、1% くらい NaN・-0.0・無限大などを混ぜる。MANY_DUPLICATES はそれらと少しの値だけ
+     */
+    public double[] generateDoubles(Pattern pattern, int size, long seed) {
+        if (size < 0) throw new IllegalArgumentException("size must be non-negative");
+
+        double[] arr = new double[size];
+        Random rand = new Random(seed);
+
+        switch (pattern) {
+            case ASCENDING -> {
+                for (int i = 0; i < size; i++) arr[i] = (i - size / 2) * 0.5;
+            }
+            case DESCENDING -> {
+                for (int i = 0; i < size; i++) arr[i] = (size / 2 - i) * 0.5;
+            }
+            case ALMOST_SORTED -> {
+                for (int i = 0; i < size; i++) arr[i] = (i - size / 2) * 0.5;
+                for (int k = 0; size > 0 && k < Math.max(1, size / 10); k++) {
+                    int i = rand.nextInt(size);
+                    int j = rand.nextInt(size);
+                    double tmp = arr[i];
+                    arr[i] = arr[j];
+                    arr[j] = tmp;
+                }
+            }
+            case MANY_DUPLICATES -> {
+                for (int i = 0; i < size; i++) {
+                    int k = rand.nextInt(SPECIAL_DOUBLES.length + 3);
+                    arr[i] = k < SPECIAL_DOUBLES.length ? SPECIAL_DOUBLES[k] : k - SPECIAL_DOUBLES.length - 1.5;
+                }
+            }
+            default -> {
+                for (int i = 0; i < size; i++) {
+                    arr[i] = rand.nextInt(100) == 0
+                            ? SPECIAL_DOUBLES[rand.nextInt(SPECIAL_DOUBLES.length)]
+                            : rand.nextGaussian() * 1e6;
+                }
+            }
+        }
+        return arr;
+    }
+
+    /**
+     * generate した配列をバイナリ形式（IntDataset）でファイルに書く
+     * ヘッダに pattern と seed も残るので、同じデータを作り直せる
+     */
+    public void writeDataset(Pattern pattern, int size, long seed, Path path) throws IOException {
+        IntDataset.write(path, generate(pattern, size, seed), seed, pattern);
+    }
+
+    /**
+     * 例: java DataGenerator RANDOM 100000000 42 data.bin
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 4) {
+            System.err.println("usage: java DataGenerator <pattern> <size> <seed> <output>");
+            System.exit(2);
+        }
+        Pattern pattern = Pattern.valueOf(args[0]);
+        int size = Integer.parseInt(args[1]);
+        long seed = Long.parseLong(args[2]);
+
+        new DataGenerator().writeDataset(pattern, size, seed, Path.of(args[3]));
+        System.out.println("wrote " + pattern + " size=" + size + " seed=" + seed + " -> " + args[3]);
+    }
+
     private void fillRandom(int[] arr, Random rand) {
         for (int i = 0; i < arr.length; i++) arr[i] = rand.nextInt(100) + 1;
     }
@@ -82,6 +197,7 @@ public class DataGenerator {
 
     private void fillAlmostSorted(int[] arr, Random rand) {
         fillAscending(arr);
+        if (arr.length == 0) return;
         // 少しだけシャッフルして「ほぼソート済み」にする
         int swaps = Math.max(1, arr.length / 10);
         for (int k = 0; k < swaps; k++) {
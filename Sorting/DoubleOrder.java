@@ -0,0 +1,56 @@
+/**
+ * double を Double.compare の順に並べるための下ごしらえ（DoubleSorter の実装が共通で使う）
+ * - NaN は < で比べられないので、先に後ろへ集めて残りだけを並べる
+ * - 比較で並べるソートは -0.0 と 0.0 を区別しないので、並べたあと 0 の並びの中で -0.0 を前に寄せる
+ * - 桁で並べるソートは sortableBits で「符号付き long として比べると同じ順になる」ビット列にする
+ */
+final class DoubleOrder {
+
+    private DoubleOrder() {}
+
+    /**
+     * NaN を a の後ろに集める（NaN のビット列はそのまま）
+     * @return NaN でない要素の数（a[0, 返り値) が並べる範囲）
+     */
+    static int moveNaNsToEnd(double[] a) {
+        int n = a.length;
+        int i = 0;
+        while (i < n) {
+            double v = a[i];
+            if (v != v) {
+                a[i] = a[--n];
+                a[n] = v;
+            } else {
+                i++;
+            }
+        }
+        return n;
+    }
+
+    /**
+     * a[0, n) が -0.0 と 0.0 を同じとして並んでいるとき、0 の並びの中で -0.0 を前に寄せる
+     */
+    static void fixZeros(double[] a, int n) {
+        int lo = 0, hi = n;          // 0 以上の最初の位置
+        while (lo < hi) {
+            int m = (lo + hi) >>> 1;
+            if (a[m] < 0.0) lo = m + 1; else hi = m;
+        }
+        int negatives = 0;
+        int end = lo;
+        while (end < n && a[end] == 0.0) {
+            if (Double.doubleToRawLongBits(a[end]) < 0) negatives++;
+            end++;
+        }
+        for (int i = lo; i < end; i++) a[i] = i < lo + negatives ? -0.0 : 0.0;
+    }
+
+    /**
+     * NaN 以外の v について、Double.compare(x, y) と Long.compare(sortableBits(x), sortableBits(y)) が同じ順になるビット列
+     * （負の数は符号以外のビットを反転する。-0.0 は 0.0 のすぐ前になる）
+     */
+    static long sortableBits(double v) {
+        long bits = Double.doubleToRawLongBits(v);
+        return bits ^ ((bits >> 63) & Long.MAX_VALUE);
+    }
+}
@@ -0,0 +1,9 @@
+/**
+ * double[] を並べる Sorter
+ * 並び順は Arrays.sort(double[]) と同じ IEEE 754 の全順序（Double.compare の順）:
+ *   -Infinity < 負の数 < -0.0 < 0.0 < 正の数 < Infinity < NaN（NaN は符号に関係なくすべて最後）
+ */
+public interface DoubleSorter {
+    String name();
+    void sort(double[] arr);
+}
@@ -0,0 +1,337 @@
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * External Merge Sort（ヒープに入りきらない大きさの整数ファイルをソートする）
+ * - 入力をメモリ予算に収まる大きさのかたまり（チャンク）ずつ読み、Sorter でソートして一時ファイルに書く（run）
+ * - run の先頭どうしをヒープ（最小値が根）で比べる k-way merge で、出力ファイルに書く
+ * - run が MAX_FAN_IN より多いときは、MAX_FAN_IN 個ずつ merge して run を減らしてから最後の merge をする
+ * - 入力はテキスト（GUI の FILE と同じ書式を IntParser で読む）、出力は1行に1つ
+ * - run ファイルは int をそのまま並べたバイナリ（読み書きで文字列にしない）
+ *
+ * 使い方: java ExternalSorter <input> <output> [memoryMB]
+ */
+public class ExternalSorter {
+
+    public static final long DEFAULT_MEMORY_BUDGET = 64L << 20;     // 64MB
+    private static final long MIN_MEMORY_BUDGET = 1L << 20;
+    private static final int MAX_FAN_IN = 64;
+    private static final int MIN_IO_BUFFER = 1 << 16;
+
+    private final Sorter sorter;
+    private final long memoryBudget;
+    private final Path tempDir;
+
+    public ExternalSorter(Sorter sorter) {
+        this(sorter, DEFAULT_MEMORY_BUDGET, null);
+    }
+
+    /**
+     * @param sorter       チャンクを並べる（sort(arr, from, to) を in-place で行うもの。IntroSort など）
+     * @param memoryBudget チャンク・作業用配列・入出力バッファを合わせたおおよその上限（バイト）
+     * @param tempDir      run を書く場所（null ならシステムの一時ディレクトリ）
+     */
+    public ExternalSorter(Sorter sorter, long memoryBudget, Path tempDir) {
+        if (memoryBudget < MIN_MEMORY_BUDGET) {
+            throw new IllegalArgumentException("memoryBudget must be at least " + MIN_MEMORY_BUDGET + " bytes");
+        }
+        this.sorter = sorter;
+        this.memoryBudget = memoryBudget;
+        this.tempDir = tempDir;
+    }
+
+    /**
+     * input の整数をソートして output に書く
+     * @return 書いた整数の個数
+     */
+    public long sort(Path input, Path output) throws IOException {
+        List<Path> runs = new ArrayList<>();
+        List<Path> merged = new ArrayList<>();   // 途中の merge で作った run（失敗したときも消す）
+        try {
+            long count = spillRuns(input, output, runs);
+
+            while (runs.size() > MAX_FAN_IN) {
+                for (int i = 0; i < runs.size(); i += MAX_FAN_IN) {
+                    List<Path> group = runs.subList(i, Math.min(runs.size(), i + MAX_FAN_IN));
+                    Path run = newRunFile();
+                    merged.add(run);
+                    try (RunWriter out = new RunWriter(run, ioBufferBytes(group.size() + 1))) {
+                        merge(group, out);
+                    }
+                    for (Path p : group) Files.deleteIfExists(p);
+                }
+                List<Path> done = runs;
+                runs = merged;
+                merged = done;
+                merged.clear();
+            }
+
+            if (!runs.isEmpty()) {
+                try (TextWriter out = new TextWriter(output, ioBufferBytes(runs.size() + 1))) {
+                    merge(runs, out);
+                }
+            }
+            return count;
+        } finally {
+            for (Path p : runs) Files.deleteIfExists(p);
+            for (Path p : merged) Files.deleteIfExists(p);
+        }
+    }
+
+    /**
+     * チャンクごとにソートして run に書き出す
+     * 入力全体が1チャンクに収まったときは run を作らず、そのまま output に書く
+     */
+    private long spillRuns(Path input, Path output, List<Path> runs) throws IOException {
+        // チャンクは予算の 3/8（Sorter が同じ大きさの作業用配列を使っても 3/4、残りは入出力バッファ）
+        int chunkSize = (int) Math.min(Integer.MAX_VALUE - 8, memoryBudget * 3 / 8 / Integer.BYTES);
+        int[] chunk = new int[chunkSize];
+        long total = 0;
+
+        try (IntParser in = new IntParser(Files.newInputStream(input), ioBufferBytes(1), 0)) {
+            while (true) {
+                int n = in.read(chunk);
+                if (n == 0 && total > 0) break;
+
+                sorter.sort(chunk, 0, n);   // 最後の半端なチャンクもコピーせず範囲だけ並べる
+                total += n;
+
+                if (n < chunk.length && runs.isEmpty()) {
+                    try (TextWriter out = new TextWriter(output, ioBufferBytes(1))) {
+                        out.write(chunk, n);
+                    }
+                    break;
+                }
+
+                Path run = newRunFile();
+                runs.add(run);
+                try (RunWriter out = new RunWriter(run, ioBufferBytes(1))) {
+                    out.write(chunk, n);
+                }
+                if (n < chunk.length) break;
+            }
+        }
+        return total;
+    }
+
+    private Path newRunFile() throws IOException {
+        return tempDir == null
+                ? Files.createTempFile("sort-run-", ".bin")
+                : Files.createTempFile(tempDir, "sort-run-", ".bin");
+    }
+
+    // 入出力バッファは合わせて予算の 1/4 まで（streams 本で分ける）
+    private int ioBufferBytes(int streams) {
+        long perStream = memoryBudget / 4 / streams;
+        long bytes = Math.max(MIN_IO_BUFFER, Math.min(1 << 24, perStream));
+        return (int) (bytes & ~(Integer.BYTES - 1));
+    }
+
+    // ---------------- k-way merge ----------------
+
+    /**
+     * heap[0..size) は run の番号で、readers[heap[i]].head が小さいものほど根に近い
+     */
+    private void merge(List<Path> sources, IntWriter out) throws IOException {
+        int k = sources.size();
+        int bufferBytes = ioBufferBytes(k + 1);
+        RunReader[] readers = new RunReader[k];
+        int[] heap = new int[k];
+        int size = 0;
+
+        try {
+            for (int i = 0; i < k; i++) {
+                readers[i] = new RunReader(sources.get(i), bufferBytes);
+                if (readers[i].advance()) heap[size++] = i;
+            }
+            for (int i = size / 2 - 1; i >= 0; i--) siftDown(heap, i, size, readers);
+
+            while (size > 0) {
+                RunReader r = readers[heap[0]];
+                out.write(r.head);
+                if (!r.advance()) {
+                    heap[0] = heap[--size];
+                }
+                if (size > 1) siftDown(heap, 0, size, readers);
+            }
+        } finally {
+            for (RunReader r : readers) {
+                if (r != null) r.close();
+            }
+        }
+    }
+
+    private static void siftDown(int[] heap, int i, int size, RunReader[] readers) {
+        int top = heap[i];
+        int v = readers[top].head;
+        while (true) {
+            int c = 2 * i + 1;
+            if (c >= size) break;
+            if (c + 1 < size && readers[heap[c + 1]].head < readers[heap[c]].head) c++;
+            if (v <= readers[heap[c]].head) break;
+            heap[i] = heap[c];
+            i = c;
+        }
+        heap[i] = top;
+    }
+
+    // ---------------- run ファイル（バイナリ） ----------------
+
+    private interface IntWriter extends Closeable {
+        void write(int v) throws IOException;
+    }
+
+    private static final class RunWriter implements IntWriter {
+        private final FileChannel ch;
+        private final ByteBuffer buf;
+
+        RunWriter(Path path, int bufferBytes) throws IOException {
+            this.ch = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            this.buf = ByteBuffer.allocate(bufferBytes).order(ByteOrder.nativeOrder());
+        }
+
+        @Override
+        public void write(int v) throws IOException {
+            if (buf.remaining() < Integer.BYTES) flush();
+            buf.putInt(v);
+        }
+
+        void write(int[] a, int n) throws IOException {
+            for (int i = 0; i < n; i++) write(a[i]);
+        }
+
+        private void flush() throws IOException {
+            buf.flip();
+            while (buf.hasRemaining()) ch.write(buf);
+            buf.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                flush();
+            } finally {
+                ch.close();
+            }
+        }
+    }
+
+    private static final class RunReader implements Closeable {
+        private final FileChannel ch;
+        private final ByteBuffer buf;
+        int head;
+
+        RunReader(Path path, int bufferBytes) throws IOException {
+            this.ch = FileChannel.open(path, StandardOpenOption.READ);
+            this.buf = ByteBuffer.allocate(bufferBytes).order(ByteOrder.nativeOrder());
+            buf.flip();     // 空の状態から始める
+        }
+
+        /**
+         * 次の値を head に読む。run の終わりなら false
+         */
+        boolean advance() throws IOException {
+            if (buf.remaining() < Integer.BYTES) {
+                buf.compact();
+                while (buf.position() < Integer.BYTES) {
+                    if (ch.read(buf) < 0) {
+                        buf.flip();
+                        if (buf.hasRemaining()) throw new EOFException("truncated run file");
+                        return false;
+                    }
+                }
+                buf.flip();
+            }
+            head = buf.getInt();
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            ch.close();
+        }
+    }
+
+    // ---------------- テキストの出力 ----------------
+
+    /**
+     * 1行に1つ、10進で書く
+     */
+    private static final class TextWriter implements IntWriter {
+        private static final int MAX_LINE = 12;     // "-2147483648\n"
+
+        private final OutputStream out;
+        private final byte[] buf;
+        private int pos = 0;
+
+        TextWriter(Path path, int bufferBytes) throws IOException {
+            this.out = Files.newOutputStream(path);
+            this.buf = new byte[Math.max(MAX_LINE, bufferBytes)];
+        }
+
+        @Override
+        public void write(int v) throws IOException {
+            if (buf.length - pos < MAX_LINE) flush();
+
+            long u = v;
+            if (u < 0) {
+                buf[pos++] = '-';
+                u = -u;
+            }
+            int digits = 1;
+            for (long t = u; t >= 10; t /= 10) digits++;
+            for (int i = pos + digits - 1; i >= pos; i--) {
+                buf[i] = (byte) ('0' + (u % 10));
+                u /= 10;
+            }
+            pos += digits;
+            buf[pos++] = '\n';
+        }
+
+        void write(int[] a, int n) throws IOException {
+            for (int i = 0; i < n; i++) write(a[i]);
+        }
+
+        private void flush() throws IOException {
+            out.write(buf, 0, pos);
+            pos = 0;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                flush();
+            } finally {
+                out.close();
+            }
+        }
+    }
+
+    // ---------------- CLI ----------------
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("usage: java ExternalSorter <input> <output> [memoryMB]");
+            System.exit(2);
+        }
+        long budget = args.length >= 3 ? Long.parseLong(args[2]) << 20 : DEFAULT_MEMORY_BUDGET;
+
+        ExternalSorter sorter = new ExternalSorter(new IntroSort(), budget, null);
+        long t0 = System.nanoTime();
+        long count = sorter.sort(Path.of(args[0]), Path.of(args[1]));
+        long t1 = System.nanoTime();
+
+        System.out.printf("sorted %d integers in %.1f ms (memory budget %d MB)%n",
+                count, (t1 - t0) / 1_000_000.0, budget >> 20);
+    }
+}
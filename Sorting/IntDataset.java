@@ -0,0 +1,158 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * int 配列をそのまま保存するバイナリ形式（テキストの解析なしで読み込める）
+ *
+ * ヘッダ（32バイト、リトルエンディアン）
+ *   0  : マジック "ISRT"
+ *   4  : int  形式のバージョン（1）
+ *   8  : long 要素数
+ *   16 : long 生成に使った seed（DataGenerator 以外で作ったときは 0）
+ *   24 : int  DataGenerator.Pattern の番号（不明なら -1）
+ *   28 : int  予約（0）
+ * 本体 : 要素数 × int（リトルエンディアン）
+ *
+ * 読み込みは FileChannel.map で対応付けて、IntBuffer から int[] にまとめてコピーする
+ */
+public final class IntDataset {
+
+    public static final int HEADER_BYTES = 32;
+    private static final byte[] MAGIC = {'I', 'S', 'R', 'T'};
+    private static final int VERSION = 1;
+    private static final long MAP_CHUNK_BYTES = 1L << 30;   // 1回に map する大きさ（2GB 未満にする）
+
+    /** ヘッダの中身（pattern は不明なら null） */
+    public record Header(long count, long seed, DataGenerator.Pattern pattern) {}
+
+    private IntDataset() {}
+
+    // ---------------- 書き込み ----------------
+
+    public static void write(Path path, int[] data, long seed, DataGenerator.Pattern pattern) throws IOException {
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            header.put(MAGIC);
+            header.putInt(VERSION);
+            header.putLong(data.length);
+            header.putLong(seed);
+            header.putInt(pattern == null ? -1 : pattern.ordinal());
+            header.putInt(0);
+            header.flip();
+            while (header.hasRemaining()) ch.write(header, header.position());
+
+            long payload = (long) data.length * Integer.BYTES;
+            int done = 0;
+            for (long off = 0; off < payload; off += MAP_CHUNK_BYTES) {
+                long len = Math.min(MAP_CHUNK_BYTES, payload - off);
+                MappedByteBuffer map = ch.map(FileChannel.MapMode.READ_WRITE, HEADER_BYTES + off, len);
+                int n = (int) (len / Integer.BYTES);
+                map.order(ByteOrder.LITTLE_ENDIAN).asIntBuffer().put(data, done, n);
+                done += n;
+            }
+        }
+    }
+
+    // ---------------- 読み込み ----------------
+
+    /**
+     * 先頭がマジックで始まるか（GUI の FILE でテキストと見分けるため）
+     */
+    public static boolean isDataset(Path path) throws IOException {
+        if (Files.size(path) < HEADER_BYTES) return false;
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer head = ByteBuffer.allocate(MAGIC.length);
+            while (head.hasRemaining()) {
+                if (ch.read(head, head.position()) < 0) return false;
+            }
+            return head.flip().equals(ByteBuffer.wrap(MAGIC));
+        }
+    }
+
+    public static Header readHeader(Path path) throws IOException {
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            return readHeader(ch);
+        }
+    }
+
+    /**
+     * 全要素を int[] に読む
+     */
+    public static int[] read(Path path) throws IOException {
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            Header h = readHeader(ch);
+            if (h.count() > Integer.MAX_VALUE - 8) {
+                throw new IOException("dataset too large for int[]: " + h.count() + " values");
+            }
+
+            int[] data = new int[(int) h.count()];
+            long payload = h.count() * Integer.BYTES;
+            int done = 0;
+            for (long off = 0; off < payload; off += MAP_CHUNK_BYTES) {
+                long len = Math.min(MAP_CHUNK_BYTES, payload - off);
+                int n = (int) (len / Integer.BYTES);
+                map(ch, HEADER_BYTES + off, len).get(data, done, n);
+                done += n;
+            }
+            return data;
+        }
+    }
+
+    /**
+     * 本体をコピーせずに IntBuffer として返す（本体が MAP_CHUNK_BYTES 以下のとき）
+     * 対応付けはチャネルを閉じても有効
+     */
+    public static IntBuffer map(Path path) throws IOException {
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            Header h = readHeader(ch);
+            long payload = h.count() * Integer.BYTES;
+            if (payload > MAP_CHUNK_BYTES) {
+                throw new IOException("dataset too large to map at once: " + h.count() + " values");
+            }
+            return map(ch, HEADER_BYTES, payload);
+        }
+    }
+
+    private static IntBuffer map(FileChannel ch, long position, long size) throws IOException {
+        return ch.map(FileChannel.MapMode.READ_ONLY, position, size).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+    }
+
+    private static Header readHeader(FileChannel ch) throws IOException {
+        ByteBuffer head = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        while (head.hasRemaining()) {
+            if (ch.read(head, head.position()) < 0) throw new IOException("not an int dataset: header is truncated");
+        }
+        head.flip();
+
+        byte[] magic = new byte[MAGIC.length];
+        head.get(magic);
+        if (!ByteBuffer.wrap(magic).equals(ByteBuffer.wrap(MAGIC))) throw new IOException("not an int dataset: bad magic");
+        int version = head.getInt();
+        if (version != VERSION) throw new IOException("unsupported int dataset version: " + version);
+
+        long count = head.getLong();
+        long seed = head.getLong();
+        int ordinal = head.getInt();
+
+        DataGenerator.Pattern[] patterns = DataGenerator.Pattern.values();
+        DataGenerator.Pattern pattern = ordinal >= 0 && ordinal < patterns.length ? patterns[ordinal] : null;
+
+        // 壊れたヘッダでも掛け算があふれないよう、count の範囲を先に見る
+        if (count < 0 || count > (Long.MAX_VALUE - HEADER_BYTES) / Integer.BYTES) {
+            throw new IOException("not an int dataset: bad count " + count);
+        }
+        long expected = HEADER_BYTES + count * Integer.BYTES;
+        if (ch.size() < expected) {
+            throw new IOException("int dataset is truncated: expected " + expected + " bytes, found " + ch.size());
+        }
+        return new Header(count, seed, pattern);
+    }
+}
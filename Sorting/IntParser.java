@@ -0,0 +1,336 @@
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * 整数テキストの解析（String にも List<Integer> にもせず、バイト列から直接 int を作る）
+ * - 書式: 区切り（空白・改行・タブ・',' ・';'）で分けた「[+-]数字の並び」
+ * - バイトは使い回しのバッファに読み、1つずつ見ながら値を組み立てる（値ごとの割り当てなし）
+ * - int に収まらない値・数字でない文字を含むトークンは、位置（バイト・行・列）つきで IntParseException
+ * - 大きいファイルは区切りの位置で分けて、複数スレッドで並列に解析できる
+ *
+ * 使い方
+ * - まとめて読む : IntParser.parse(text) / IntParser.parse(path)
+ * - 少しずつ読む : try (IntParser p = new IntParser(in)) { while ((n = p.read(chunk)) > 0) ... }
+ */
+public final class IntParser implements Closeable {
+
+    private static final int DEFAULT_BUFFER = 1 << 16;
+    private static final long PARALLEL_MIN_BYTES = 16L << 20;   // これより大きいファイルは並列に解析する
+
+    /**
+     * 解析できなかったトークン（offset は入力の先頭からのバイト位置）
+     */
+    public static final class IntParseException extends NumberFormatException {
+        private static final long serialVersionUID = 1L;
+
+        private final long offset;
+
+        IntParseException(String message, long offset) {
+            super(message);
+            this.offset = offset;
+        }
+
+        public long offset() {
+            return offset;
+        }
+    }
+
+    private InputStream in;
+    private final byte[] buf;
+    private int pos = 0;
+    private int limit = 0;
+    private long bufferStart;       // buf[0] の入力上の位置
+
+    public IntParser(InputStream in) {
+        this(in, DEFAULT_BUFFER, 0);
+    }
+
+    /**
+     * @param startOffset 入力の先頭が元のファイルのどこか（エラーの位置表示用）
+     */
+    public IntParser(InputStream in, int bufferBytes, long startOffset) {
+        this.in = in;
+        this.buf = new byte[bufferBytes];
+        this.bufferStart = startOffset;
+    }
+
+    /**
+     * 同じバッファのまま別の入力を読む
+     */
+    public void reset(InputStream in, long startOffset) {
+        this.in = in;
+        this.pos = 0;
+        this.limit = 0;
+        this.bufferStart = startOffset;
+    }
+
+    public int read(int[] dst) throws IOException {
+        return read(dst, 0, dst.length);
+    }
+
+    /**
+     * dst[off, off+len) を先頭から埋めて、読んだ個数を返す（len より少なければ入力の終わり）
+     */
+    public int read(int[] dst, int off, int len) throws IOException {
+        int n = 0;
+        while (n < len) {
+            int c = skipSeparators();
+            if (c < 0) break;
+
+            long start = bufferStart + pos - 1;
+            boolean negative = c == '-';
+            if (c == '-' || c == '+') c = next();
+            if (!isDigit(c)) throw malformed(c, start);
+
+            long v = 0;
+            do {
+                v = v * 10 + (c - '0');
+                if (v > 1L + Integer.MAX_VALUE) throw overflow(start);
+                c = next();
+            } while (isDigit(c));
+
+            if (c >= 0 && !isSeparator(c)) throw malformed(c, start);
+            if (!negative && v > Integer.MAX_VALUE) throw overflow(start);
+
+            dst[off + n++] = (int) (negative ? -v : v);
+        }
+        return n;
+    }
+
+    /**
+     * 残りをすべて読む
+     */
+    public int[] readAll() throws IOException {
+        int[] values = new int[1024];
+        int size = 0;
+        while (true) {
+            if (size == values.length) values = Arrays.copyOf(values, size * 2);
+            int n = read(values, size, values.length - size);
+            size += n;
+            if (size < values.length) break;
+        }
+        return Arrays.copyOf(values, size);
+    }
+
+    private int skipSeparators() throws IOException {
+        while (true) {
+            int c = next();
+            if (c < 0 || !isSeparator(c)) return c;
+        }
+    }
+
+    private int next() throws IOException {
+        if (pos == limit) {
+            bufferStart += limit;
+            pos = 0;
+            limit = Math.max(0, in.read(buf, 0, buf.length));
+            if (limit == 0) return -1;
+        }
+        return buf[pos++] & 0xFF;
+    }
+
+    private static boolean isDigit(int c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isSeparator(int c) {
+        return c == ' ' || c == '\n' || c == '\r' || c == '\t' || c == ',' || c == ';';
+    }
+
+    private static IntParseException malformed(int c, long start) {
+        String what = c < 0 ? "end of input" : (c >= 0x20 && c < 0x7F) ? "'" + (char) c + "'" : String.format("byte 0x%02X", c);
+        return new IntParseException("malformed integer: unexpected " + what + " in token at byte " + start, start);
+    }
+
+    private static IntParseException overflow(long start) {
+        return new IntParseException("integer out of range at byte " + start, start);
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    // ---------------- まとめて読む ----------------
+
+    public static int[] parse(CharSequence text) {
+        byte[] bytes = text.toString().getBytes(StandardCharsets.UTF_8);
+        try (IntParser p = new IntParser(new ByteArrayInputStream(bytes))) {
+            return p.readAll();
+        } catch (IntParseException e) {
+            throw withLocation(e, new ByteArrayInputStream(bytes));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);     // メモリ上の入力なので起きない
+        }
+    }
+
+    /**
+     * ファイルを読む（PARALLEL_MIN_BYTES より大きければ CPU 数のスレッドで並列に）
+     */
+    public static int[] parse(Path path) throws IOException {
+        int threads = Files.size(path) >= PARALLEL_MIN_BYTES ? Runtime.getRuntime().availableProcessors() : 1;
+        return parse(path, threads);
+    }
+
+    /**
+     * ファイルを threads 個の区間に分けて並列に読む
+     * 区間の境目は区切り文字の直後までずらすので、トークンが2つに割れることはない
+     */
+    public static int[] parse(Path path, int threads) throws IOException {
+        try {
+            if (threads <= 1) {
+                try (IntParser p = new IntParser(Files.newInputStream(path))) {
+                    return p.readAll();
+                }
+            }
+            return parseParallel(path, threads);
+        } catch (IntParseException e) {
+            try (InputStream again = Files.newInputStream(path)) {
+                throw withLocation(e, again);
+            }
+        }
+    }
+
+    private static int[] parseParallel(Path path, int threads) throws IOException {
+        long size = Files.size(path);
+        long[] bounds = new long[threads + 1];
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            bounds[threads] = size;
+            for (int t = 1; t < threads; t++) {
+                long nominal = size * t / threads;
+                bounds[t] = Math.max(bounds[t - 1], alignToToken(ch, nominal, size));
+            }
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<int[]>> parts = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                long from = bounds[t];
+                long to = bounds[t + 1];
+                parts.add(pool.submit(() -> {
+                    try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ);
+                         IntParser p = new IntParser(new RangeInputStream(ch, from, to), DEFAULT_BUFFER, from)) {
+                        return p.readAll();
+                    }
+                }));
+            }
+
+            List<int[]> results = new ArrayList<>();
+            long total = 0;
+            for (Future<int[]> f : parts) {
+                int[] part = f.get();
+                results.add(part);
+                total += part.length;
+            }
+            if (total > Integer.MAX_VALUE - 8) throw new IOException("too many integers for int[]: " + total);
+
+            int[] all = new int[(int) total];
+            int k = 0;
+            for (int[] part : results) {
+                System.arraycopy(part, 0, all, k, part.length);
+                k += part.length;
+            }
+            return all;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IntParseException pe) throw pe;
+            if (cause instanceof IOException io) throw io;
+            throw new IllegalStateException(cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted while parsing " + path, e);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    // position 以降で、最初の「区切り文字の直後」の位置
+    private static long alignToToken(FileChannel ch, long position, long size) throws IOException {
+        if (position == 0) return 0;
+        ByteBuffer b = ByteBuffer.allocate(4096);
+        long p = position - 1;      // 直前が区切りなら position のままでよい
+        while (p < size) {
+            b.clear();
+            int n = ch.read(b, p);
+            if (n <= 0) break;
+            for (int i = 0; i < n; i++) {
+                if (isSeparator(b.get(i) & 0xFF)) return p + i + 1;
+            }
+            p += n;
+        }
+        return size;
+    }
+
+    /**
+     * ファイルの [from, to) だけを読む InputStream
+     */
+    private static final class RangeInputStream extends InputStream {
+        private final FileChannel ch;
+        private long position;
+        private final long end;
+
+        RangeInputStream(FileChannel ch, long from, long to) {
+            this.ch = ch;
+            this.position = from;
+            this.end = to;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) < 0 ? -1 : one[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (position >= end) return -1;
+            int n = ch.read(ByteBuffer.wrap(b, off, (int) Math.min(len, end - position)), position);
+            if (n > 0) position += n;
+            return n;
+        }
+    }
+
+    // エラーの位置に行・列を足す（エラーのときだけ先頭から数え直す）
+    private static IntParseException withLocation(IntParseException e, InputStream source) {
+        long line = 1;
+        long column = 1;
+        try (InputStream in = source) {
+            byte[] b = new byte[DEFAULT_BUFFER];
+            long p = 0;
+            int n;
+            while (p < e.offset() && (n = in.read(b, 0, (int) Math.min(b.length, e.offset() - p))) > 0) {
+                for (int i = 0; i < n; i++) {
+                    if (b[i] == '\n') {
+                        line++;
+                        column = 1;
+                    } else {
+                        column++;
+                    }
+                }
+                p += n;
+            }
+        } catch (IOException ignored) {
+            return e;
+        }
+        IntParseException located = new IntParseException(
+                e.getMessage() + " (line " + line + ", column " + column + ")", e.offset());
+        located.setStackTrace(e.getStackTrace());
+        return located;
+    }
+}
@@ -0,0 +1,550 @@
+/**
+ * Intro Sort（Dual-Pivot Quick Sort + Heap Sort + Insertion Sort）
+ * - 基本は2つのピボット p <= q で3つに分割するクイックソート
+ * - 再帰が深くなりすぎたら（2*log2(n) 段）その範囲はヒープソートに切り替える → 最悪でも O(n log n)
+ * - INSERTION_THRESHOLD 以下の小さい範囲は挿入ソート
+ * - すべて元の配列の中だけで並べ替える（in-place）
+ */
+public class IntroSort implements StepSortable, LongSorter, DoubleSorter {
+
+    private static final int INSERTION_THRESHOLD = 27;
+
+    @Override
+    public String name() {
+        return "Intro Sort";
+    }
+
+    @Override
+    public void sort(int[] arr) {
+        sort(arr, OpCounter.NONE);
+    }
+
+    /**
+     * 回数は分割1回・挿入ソート1回・sift 1回ごとに自分の変数で数えてから ops に足す
+     */
+    @Override
+    public void sort(int[] arr, OpCounter counter) {
+        if (arr.length <= 1) return;
+        OpCounts ops = new OpCounts();
+        sort(arr, 0, arr.length - 1, depthLimit(arr.length), ops);
+        counter.compares(ops.compares);
+        counter.swaps(ops.swaps);
+        counter.writes(ops.writes);
+    }
+
+    /**
+     * arr[from, to) だけを並べる（コピーしない）
+     */
+    @Override
+    public void sort(int[] arr, int from, int to) {
+        java.util.Objects.checkFromToIndex(from, to, arr.length);
+        if (to - from <= 1) return;
+        sort(arr, from, to - 1, depthLimit(to - from), new OpCounts());
+    }
+
+    private static int depthLimit(int n) {
+        return 2 * (31 - Integer.numberOfLeadingZeros(n));
+    }
+
+    /**
+     * a[lo..hi] をソートする（閉区間）
+     */
+    private static void sort(int[] a, int lo, int hi, int depth, OpCounts ops) {
+        while (hi - lo + 1 > INSERTION_THRESHOLD) {
+            if (depth == 0) {
+                heapSort(a, lo, hi, ops);
+                return;
+            }
+            depth--;
+
+            // 3等分した位置の値をピボットにする（ソート済み・逆順でも偏らない）
+            int len = hi - lo + 1;
+            int third = len / 3;
+            long cmp = 1;
+            int sw = swap(a, lo, lo + third) + swap(a, hi, hi - third);
+            if (a[lo] > a[hi]) sw += swap(a, lo, hi);
+            int p = a[lo];
+            int q = a[hi];
+
+            // [lo+1, lt) < p,  [lt, k) は p..q,  (gt, hi-1] > q
+            int lt = lo + 1;
+            int gt = hi - 1;
+            for (int k = lt; k <= gt; k++) {
+                cmp++;
+                if (a[k] < p) {
+                    sw += swap(a, k, lt++);
+                } else {
+                    cmp++;
+                    if (a[k] > q) {
+                        int g0 = gt;
+                        while (k < gt && a[gt] > q) gt--;
+                        cmp += g0 - gt + (k < gt ? 1 : 0);
+                        sw += swap(a, k, gt--);
+                        cmp++;
+                        if (a[k] < p) sw += swap(a, k, lt++);
+                    }
+                }
+            }
+            lt--;
+            gt++;
+            sw += swap(a, lo, lt);
+            sw += swap(a, hi, gt);
+            ops.compares += cmp;
+            ops.swaps += sw;
+
+            sort(a, lo, lt - 1, depth, ops);
+            sort(a, gt + 1, hi, depth, ops);
+
+            // p == q なら真ん中はすべて同じ値
+            if (p == q) return;
+
+            // 真ん中が大きい（重複が多い）ときは p, q と同じ値を両端に寄せて残りだけソートする
+            int from = lt + 1;
+            int to = gt - 1;
+            if (to - from + 1 > len / 2) {
+                cmp = 0;
+                sw = 0;
+                for (int k = from; k <= to; k++) {
+                    cmp++;
+                    if (a[k] == p) {
+                        sw += swap(a, k, from++);
+                    } else {
+                        cmp++;
+                        if (a[k] == q) {
+                            int t0 = to;
+                            while (k < to && a[to] == q) to--;
+                            cmp += t0 - to + (k < to ? 1 : 0);
+                            sw += swap(a, k, to--);
+                            cmp++;
+                            if (a[k] == p) sw += swap(a, k, from++);
+                        }
+                    }
+                }
+                ops.compares += cmp;
+                ops.swaps += sw;
+            }
+            lo = from;
+            hi = to;
+        }
+        insertionSort(a, lo, hi, ops);
+    }
+
+    // 回数は内側のループが終わってから、ずらした個数で数える
+    private static void insertionSort(int[] a, int lo, int hi, OpCounts ops) {
+        for (int i = lo + 1; i <= hi; i++) {
+            int v = a[i];
+            int j = i - 1;
+            while (j >= lo && a[j] > v) {
+                a[j + 1] = a[j];
+                j--;
+            }
+            a[j + 1] = v;
+
+            int shifted = i - 1 - j;
+            ops.compares += shifted + (j >= lo ? 1 : 0);
+            ops.writes += shifted + 1;
+        }
+    }
+
+    private static void heapSort(int[] a, int lo, int hi, OpCounts ops) {
+        int n = hi - lo + 1;
+        for (int i = n / 2 - 1; i >= 0; i--) siftDown(a, lo, i, n, ops);
+        for (int end = n - 1; end > 0; end--) {
+            ops.swaps += swap(a, lo, lo + end);
+            siftDown(a, lo, 0, end, ops);
+        }
+    }
+
+    private static void siftDown(int[] a, int lo, int i, int n, OpCounts ops) {
+        int v = a[lo + i];
+        long cmp = 0;
+        long writes = 1;
+        while (true) {
+            int c = 2 * i + 1;
+            if (c >= n) break;
+            if (c + 1 < n) {
+                cmp++;
+                if (a[lo + c + 1] > a[lo + c]) c++;
+            }
+            cmp++;
+            if (v >= a[lo + c]) break;
+            a[lo + i] = a[lo + c];
+            writes++;
+            i = c;
+        }
+        a[lo + i] = v;
+        ops.compares += cmp;
+        ops.writes += writes;
+    }
+
+    /**
+     * @return 入れ替えた回数（i == j のときは何もしないので 0）
+     */
+    private static int swap(int[] a, int i, int j) {
+        int tmp = a[i];
+        a[i] = a[j];
+        a[j] = tmp;
+        return i != j ? 1 : 0;
+    }
+
+    // ---------------- long[] / double[] ----------------
+    // 手順は int[] 版と同じ（回数は数えない）。型ごとに書き分けて、値を箱に入れない
+
+    @Override
+    public void sort(long[] arr) {
+        if (arr.length <= 1) return;
+        sort(arr, 0, arr.length - 1, depthLimit(arr.length));
+    }
+
+    /**
+     * NaN を後ろに集めてから残りを < で並べ、最後に -0.0 を 0.0 の前に寄せる（DoubleOrder）
+     */
+    @Override
+    public void sort(double[] arr) {
+        int n = DoubleOrder.moveNaNsToEnd(arr);
+        if (n <= 1) return;
+        sort(arr, 0, n - 1, depthLimit(n));
+        DoubleOrder.fixZeros(arr, n);
+    }
+
+    private static void sort(long[] a, int lo, int hi, int depth) {
+        while (hi - lo + 1 > INSERTION_THRESHOLD) {
+            if (depth == 0) {
+                heapSort(a, lo, hi);
+                return;
+            }
+            depth--;
+
+            int len = hi - lo + 1;
+            int third = len / 3;
+            swap(a, lo, lo + third);
+            swap(a, hi, hi - third);
+            if (a[lo] > a[hi]) swap(a, lo, hi);
+            long p = a[lo];
+            long q = a[hi];
+
+            int lt = lo + 1;
+            int gt = hi - 1;
+            for (int k = lt; k <= gt; k++) {
+                if (a[k] < p) {
+                    swap(a, k, lt++);
+                } else if (a[k] > q) {
+                    while (k < gt && a[gt] > q) gt--;
+                    swap(a, k, gt--);
+                    if (a[k] < p) swap(a, k, lt++);
+                }
+            }
+            lt--;
+            gt++;
+            swap(a, lo, lt);
+            swap(a, hi, gt);
+
+            sort(a, lo, lt - 1, depth);
+            sort(a, gt + 1, hi, depth);
+
+            if (p == q) return;
+
+            int from = lt + 1;
+            int to = gt - 1;
+            if (to - from + 1 > len / 2) {
+                for (int k = from; k <= to; k++) {
+                    if (a[k] == p) {
+                        swap(a, k, from++);
+                    } else if (a[k] == q) {
+                        while (k < to && a[to] == q) to--;
+                        swap(a, k, to--);
+                        if (a[k] == p) swap(a, k, from++);
+                    }
+                }
+            }
+            lo = from;
+            hi = to;
+        }
+        insertionSort(a, lo, hi);
+    }
+
+    private static void insertionSort(long[] a, int lo, int hi) {
+        for (int i = lo + 1; i <= hi; i++) {
+            long v = a[i];
+            int j = i - 1;
+            while (j >= lo && a[j] > v) {
+                a[j + 1] = a[j];
+                j--;
+            }
+            a[j + 1] = v;
+        }
+    }
+
+    private static void heapSort(long[] a, int lo, int hi) {
+        int n = hi - lo + 1;
+        for (int i = n / 2 - 1; i >= 0; i--) siftDown(a, lo, i, n);
+        for (int end = n - 1; end > 0; end--) {
+            swap(a, lo, lo + end);
+            siftDown(a, lo, 0, end);
+        }
+    }
+
+    private static void siftDown(long[] a, int lo, int i, int n) {
+        long v = a[lo + i];
+        while (true) {
+            int c = 2 * i + 1;
+            if (c >= n) break;
+            if (c + 1 < n && a[lo + c + 1] > a[lo + c]) c++;
+            if (v >= a[lo + c]) break;
+            a[lo + i] = a[lo + c];
+            i = c;
+        }
+        a[lo + i] = v;
+    }
+
+    private static void swap(long[] a, int i, int j) {
+        long tmp = a[i];
+        a[i] = a[j];
+        a[j] = tmp;
+    }
+
+    private static void sort(double[] a, int lo, int hi, int depth) {
+        while (hi - lo + 1 > INSERTION_THRESHOLD) {
+            if (depth == 0) {
+                heapSort(a, lo, hi);
+                return;
+            }
+            depth--;
+
+            int len = hi - lo + 1;
+            int third = len / 3;
+            swap(a, lo, lo + third);
+            swap(a, hi, hi - third);
+            if (a[lo] > a[hi]) swap(a, lo, hi);
+            double p = a[lo];
+            double q = a[hi];
+
+            int lt = lo + 1;
+            int gt = hi - 1;
+            for (int k = lt; k <= gt; k++) {
+                if (a[k] < p) {
+                    swap(a, k, lt++);
+                } else if (a[k] > q) {
+                    while (k < gt && a[gt] > q) gt--;
+                    swap(a, k, gt--);
+                    if (a[k] < p) swap(a, k, lt++);
+                }
+            }
+            lt--;
+            gt++;
+            swap(a, lo, lt);
+            swap(a, hi, gt);
+
+            sort(a, lo, lt - 1, depth);
+            sort(a, gt + 1, hi, depth);
+
+            if (p == q) return;
+
+            int from = lt + 1;
+            int to = gt - 1;
+            if (to - from + 1 > len / 2) {
+                for (int k = from; k <= to; k++) {
+                    if (a[k] == p) {
+                        swap(a, k, from++);
+                    } else if (a[k] == q) {
+                        while (k < to && a[to] == q) to--;
+                        swap(a, k, to--);
+                        if (a[k] == p) swap(a, k, from++);
+                    }
+                }
+            }
+            lo = from;
+            hi = to;
+        }
+        insertionSort(a, lo, hi);
+    }
+
+    private static void insertionSort(double[] a, int lo, int hi) {
+        for (int i = lo + 1; i <= hi; i++) {
+            double v = a[i];
+            int j = i - 1;
+            while (j >= lo && a[j] > v) {
+                a[j + 1] = a[j];
+                j--;
+            }
+            a[j + 1] = v;
+        }
+    }
+
+    private static void heapSort(double[] a, int lo, int hi) {
+        int n = hi - lo + 1;
+        for (int i = n / 2 - 1; i >= 0; i--) siftDown(a, lo, i, n);
+        for (int end = n - 1; end > 0; end--) {
+            swap(a, lo, lo + end);
+            siftDown(a, lo, 0, end);
+        }
+    }
+
+    private static void siftDown(double[] a, int lo, int i, int n) {
+        double v = a[lo + i];
+        while (true) {
+            int c = 2 * i + 1;
+            if (c >= n) break;
+            if (c + 1 < n && a[lo + c + 1] > a[lo + c]) c++;
+            if (v >= a[lo + c]) break;
+            a[lo + i] = a[lo + c];
+            i = c;
+        }
+        a[lo + i] = v;
+    }
+
+    private static void swap(double[] a, int i, int j) {
+        double tmp = a[i];
+        a[i] = a[j];
+        a[j] = tmp;
+    }
+
+    // ---------------- GUI用 ----------------
+
+    /**
+     * 再帰のまま1回記録してから、記録したステップを少しずつ流す
+     */
+    @Override
+    public StepCursor cursor(int[] input) {
+        return SortEvents.steps(this, input).cursor();
+    }
+
+    /**
+     * sort と同じ手順で、比較・交換・分割範囲を記録する
+     * - range(lo, hi)   : いま分割（またはヒープ・挿入ソート）している範囲
+     * - compare(k, lo)  : ピボット p（a[lo]）との比較、compare(k, hi) はピボット q（a[hi]）との比較
+     * - swap(i, j)      : 交換（i == j のときは記録しない）
+     */
+    @Override
+    public void record(int[] input, StepSink steps) {
+        int[] arr = input.clone();
+        if (arr.length <= 1) return;
+
+        sortWithSteps(arr, 0, arr.length - 1, depthLimit(arr.length), steps);
+
+        steps.range(-1, -1);
+        steps.compare(-1, -1);
+    }
+
+    private static void sortWithSteps(int[] a, int lo, int hi, int depth, StepSink s) {
+        while (hi - lo + 1 > INSERTION_THRESHOLD) {
+            if (depth == 0) {
+                heapSortWithSteps(a, lo, hi, s);
+                return;
+            }
+            depth--;
+
+            s.range(lo, hi);
+
+            int len = hi - lo + 1;
+            int third = len / 3;
+            swap(a, lo, lo + third, s);
+            swap(a, hi, hi - third, s);
+            s.compare(lo, hi);
+            if (a[lo] > a[hi]) swap(a, lo, hi, s);
+            int p = a[lo];
+            int q = a[hi];
+
+            int lt = lo + 1;
+            int gt = hi - 1;
+            for (int k = lt; k <= gt; k++) {
+                s.compare(k, lo);
+                if (a[k] < p) {
+                    swap(a, k, lt++, s);
+                    continue;
+                }
+                s.compare(k, hi);
+                if (a[k] > q) {
+                    while (k < gt) {
+                        s.compare(gt, hi);
+                        if (a[gt] <= q) break;
+                        gt--;
+                    }
+                    swap(a, k, gt--, s);
+                    s.compare(k, lo);
+                    if (a[k] < p) swap(a, k, lt++, s);
+                }
+            }
+            lt--;
+            gt++;
+            swap(a, lo, lt, s);
+            swap(a, hi, gt, s);
+
+            sortWithSteps(a, lo, lt - 1, depth, s);
+            sortWithSteps(a, gt + 1, hi, depth, s);
+
+            if (p == q) return;
+
+            int from = lt + 1;
+            int to = gt - 1;
+            if (to - from + 1 > len / 2) {
+                s.range(from, to);
+                for (int k = from; k <= to; k++) {
+                    s.compare(k, lt);
+                    if (a[k] == p) {
+                        swap(a, k, from++, s);
+                        continue;
+                    }
+                    s.compare(k, gt);
+                    if (a[k] == q) {
+                        while (k < to) {
+                            s.compare(to, gt);
+                            if (a[to] != q) break;
+                            to--;
+                        }
+                        swap(a, k, to--, s);
+                        s.compare(k, lt);
+                        if (a[k] == p) swap(a, k, from++, s);
+                    }
+                }
+            }
+            lo = from;
+            hi = to;
+        }
+        insertionSortWithSteps(a, lo, hi, s);
+    }
+
+    // 挿入は「隣どうしの交換」として記録する
+    private static void insertionSortWithSteps(int[] a, int lo, int hi, StepSink s) {
+        if (lo >= hi) return;
+        s.range(lo, hi);
+        for (int i = lo + 1; i <= hi; i++) {
+            for (int j = i - 1; j >= lo; j--) {
+                s.compare(j, j + 1);
+                if (a[j] <= a[j + 1]) break;
+                swap(a, j, j + 1, s);
+            }
+        }
+    }
+
+    private static void heapSortWithSteps(int[] a, int lo, int hi, StepSink s) {
+        s.range(lo, hi);
+        int n = hi - lo + 1;
+        for (int i = n / 2 - 1; i >= 0; i--) siftDownWithSteps(a, lo, i, n, s);
+        for (int end = n - 1; end > 0; end--) {
+            swap(a, lo, lo + end, s);
+            siftDownWithSteps(a, lo, 0, end, s);
+        }
+    }
+
+    private static void siftDownWithSteps(int[] a, int lo, int i, int n, StepSink s) {
+        while (true) {
+            int c = 2 * i + 1;
+            if (c >= n) break;
+            if (c + 1 < n) {
+                s.compare(lo + c + 1, lo + c);
+                if (a[lo + c + 1] > a[lo + c]) c++;
+            }
+            s.compare(lo + i, lo + c);
+            if (a[lo + i] >= a[lo + c]) break;
+            swap(a, lo + i, lo + c, s);
+            i = c;
+        }
+    }
+
+    private static void swap(int[] a, int i, int j, StepSink s) {
+        if (i == j) return;
+        swap(a, i, j);
+        s.swap(i, j);
+    }
+}
@@ -0,0 +1,8 @@
+/**
+ * long[] を並べる Sorter（64bit のタイムスタンプなど）
+ * int[] 版と同じく配列の中身をそのまま並べ替え、値を箱に入れない
+ */
+public interface LongSorter {
+    String name();
+    void sort(long[] arr);
+}
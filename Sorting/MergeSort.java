@@ -1,128 +1,312 @@
-import java.util.ArrayList;
-import java.util.List;
-
 public class MergeSort implements StepSortable {
 
+    private static final int INSERTION_RUN = 32;
+
     @Override
     public String name() {
         return "Merge Sort";
     }
 
+    /**
+     * テスト・ベンチマーク用（一気にソート）
+     * - 小さいブロック（INSERTION_RUN 個ずつ）は挿入ソート
+     * - その後はボトムアップで幅を倍にしながら merge（再帰なし）
+     * - 作業用バッファは n 個の配列を1つだけ確保し、元配列と交互に使う（ping-pong）
+     * - 左右がすでに順番通りなら merge せずにコピーするだけ
+     */
     @Override
     public void sort(int[] arr) {
-        if (arr.length <= 1) return;
-        mergeSortRecursive(arr, 0, arr.length - 1);
+        sort(arr, OpCounter.NONE);
     }
 
+    /**
+     * 回数はループの外（挿入1回・merge 1回ごと）でまとめて数えるので、sort(arr) と速さは変わらない
+     */
     @Override
-    public List<SortStep> steps(int[] input) {
-        int[] arr = input.clone();
-        List<SortStep> steps = new ArrayList<>();
-        if (arr.length <= 1) return steps;
-
-        int[] temp = new int[arr.length];
-        mergeSortWithSteps(arr, temp, 0, arr.length - 1, steps);
-        return steps;
+    public void sort(int[] arr, OpCounter counter) {
+        OpCounts ops = new OpCounts();
+        bottomUp(arr, ops);
+        counter.compares(ops.compares);
+        counter.writes(ops.writes);
     }
 
-    private void mergeSortRecursive(int[] arr, int left, int right) {
-        if (left >= right) return;
+    private static void bottomUp(int[] arr, OpCounts ops) {
+        int n = arr.length;
+        if (n <= 1) return;
 
-        int mid = (left + right) / 2;
+        for (int lo = 0; lo < n; lo += INSERTION_RUN) {
+            insertionSort(arr, lo, Math.min(lo + INSERTION_RUN, n), ops);
+        }
+        // ASCENDING などは挿入ソートだけで終わる（バッファも確保しない）
+        if (n <= INSERTION_RUN || isSorted(arr, ops)) return;
+
+        int[] src = arr;
+        int[] dst = new int[n];
+        for (int width = INSERTION_RUN; width < n; width *= 2) {
+            for (int lo = 0; lo < n; lo += 2 * width) {
+                int mid = Math.min(lo + width, n);
+                int hi = Math.min(lo + 2 * width, n);
+                if (mid < hi) ops.compares++;
+                if (mid >= hi || src[mid - 1] <= src[mid]) {
+                    System.arraycopy(src, lo, dst, lo, hi - lo);
+                } else {
+                    ops.compares += merge(src, lo, mid, hi, dst);
+                }
+                ops.writes += hi - lo;
+            }
+            int[] t = src;
+            src = dst;
+            dst = t;
+        }
+
+        if (src != arr) {
+            System.arraycopy(src, 0, arr, 0, n);
+            ops.writes += n;
+        }
+    }
+
+    /**
+     * order（レコードの添字の配列）を cmp の順に並べる（安定。RecordSort の argsort(n, cmp) 用）
+     * 手順は bottomUp と同じ: INSERTION_RUN 個ずつ挿入ソート → ボトムアップで merge（順番通りならコピーだけ）
+     */
+    static void sortIndices(int[] order, RecordSort.IndexComparator cmp) {
+        int n = order.length;
+        if (n <= 1) return;
+
+        for (int lo = 0; lo < n; lo += INSERTION_RUN) {
+            int hi = Math.min(lo + INSERTION_RUN, n);
+            for (int i = lo + 1; i < hi; i++) {
+                int v = order[i];
+                int j = i - 1;
+                while (j >= lo && cmp.compare(order[j], v) > 0) {
+                    order[j + 1] = order[j];
+                    j--;
+                }
+                order[j + 1] = v;
+            }
+        }
+        if (n <= INSERTION_RUN) return;
 
-        mergeSortRecursive(arr, left, mid);
-        mergeSortRecursive(arr, mid + 1, right);
+        int[] src = order;
+        int[] dst = new int[n];
+        for (int width = INSERTION_RUN; width < n; width *= 2) {
+            for (int lo = 0; lo < n; lo += 2 * width) {
+                int mid = Math.min(lo + width, n);
+                int hi = Math.min(lo + 2 * width, n);
+                if (mid >= hi || cmp.compare(src[mid - 1], src[mid]) <= 0) {
+                    System.arraycopy(src, lo, dst, lo, hi - lo);
+                } else {
+                    mergeIndices(src, lo, mid, hi, dst, cmp);
+                }
+            }
+            int[] t = src;
+            src = dst;
+            dst = t;
+        }
 
-        merge(arr, left, mid, right);
+        if (src != order) System.arraycopy(src, 0, order, 0, n);
+    }
+
+    @Override
+    public StepCursor cursor(int[] input) {
+        return new Cursor(input.clone());
     }
 
-    private void mergeSortWithSteps(int[] arr, int[] temp, int left, int right, List<SortStep> steps) {
+    /**
+     * トップダウン再帰と同じ順番（後行順）で並べた merge の予定表を作る（表示用）
+     * schedule には (left, mid, right) を 3 つずつ詰める
+     */
+    private static void buildSchedule(int left, int right, int[] schedule, int[] count) {
         if (left >= right) return;
 
         int mid = (left + right) / 2;
 
-        mergeSortWithSteps(arr, temp, left, mid, steps);
-        mergeSortWithSteps(arr, temp, mid + 1, right, steps);
+        buildSchedule(left, mid, schedule, count);
+        buildSchedule(mid + 1, right, schedule, count);
 
-        mergeWithSteps(arr, temp, left, mid, right, steps);
+        int p = count[0]++ * 3;
+        schedule[p] = left;
+        schedule[p + 1] = mid;
+        schedule[p + 2] = right;
     }
 
-    private void merge(int[] arr, int left, int mid, int right) {
-        int n1 = mid - left + 1;
-        int n2 = right - mid;
+    // 回数は内側のループが終わってから、ずらした個数で数える
+    private static void insertionSort(int[] arr, int lo, int hi, OpCounts ops) {
+        for (int i = lo + 1; i < hi; i++) {
+            int v = arr[i];
+            int j = i - 1;
+            while (j >= lo && arr[j] > v) {
+                arr[j + 1] = arr[j];
+                j--;
+            }
+            arr[j + 1] = v;
 
-        int[] L = new int[n1];
-        int[] R = new int[n2];
+            int shifted = i - 1 - j;
+            ops.compares += shifted + (j >= lo ? 1 : 0);
+            ops.writes += shifted + 1;
+        }
+    }
 
-        for (int i = 0; i < n1; i++) L[i] = arr[left + i];
-        for (int i = 0; i < n2; i++) R[i] = arr[mid + 1 + i];
+    private static boolean isSorted(int[] arr, OpCounts ops) {
+        for (int i = 1; i < arr.length; i++) {
+            if (arr[i - 1] > arr[i]) {
+                ops.compares += i;
+                return false;
+            }
+        }
+        ops.compares += arr.length - 1;
+        return true;
+    }
 
-        int i = 0, j = 0, k = left;
+    /**
+     * src[lo, mid) と src[mid, hi) を dst[lo, hi) に merge する（同じ値は左が先 = 安定）
+     * @return 比較の回数（どちらかが尽きるまでに置いた個数と同じ）
+     */
+    private static int merge(int[] src, int lo, int mid, int hi, int[] dst) {
+        int i = lo, j = mid, k = lo;
 
-        while (i < n1 && j < n2) {
-            if (L[i] <= R[j]) {
-                arr[k++] = L[i++];
+        while (i < mid && j < hi) {
+            if (src[i] <= src[j]) {
+                dst[k++] = src[i++];
             } else {
-                arr[k++] = R[j++];
+                dst[k++] = src[j++];
             }
         }
+        int compares = k - lo;
 
-        while (i < n1) arr[k++] = L[i++];
-        while (j < n2) arr[k++] = R[j++];
+        while (i < mid) dst[k++] = src[i++];
+        while (j < hi) dst[k++] = src[j++];
+        return compares;
     }
 
-    private void mergeWithSteps(int[] arr, int[] temp, int left, int mid, int right, List<SortStep> steps) {
-        int i = left;
-        int j = mid + 1;
-        int k = left;
-
-        while (i <= mid && j <= right) {
-            int ca = i;
-            int cb = j;
+    // merge と同じ（同じなら左が先）。比べるのは添字の先のレコード
+    private static void mergeIndices(int[] src, int lo, int mid, int hi, int[] dst, RecordSort.IndexComparator cmp) {
+        int i = lo, j = mid, k = lo;
 
-            if (arr[i] <= arr[j]) {
-                temp[k] = arr[i++];
+        while (i < mid && j < hi) {
+            if (cmp.compare(src[i], src[j]) <= 0) {
+                dst[k++] = src[i++];
             } else {
-                temp[k] = arr[j++];
+                dst[k++] = src[j++];
             }
+        }
+        while (i < mid) dst[k++] = src[i++];
+        while (j < hi) dst[k++] = src[j++];
+    }
+
+    /**
+     * merge の予定表を1つずつ進める状態機械
+     * - 1回の merge は range → (compare → write)* → 残りの write で表す
+     * - 表示上は temp の内容を k に書き込んだ状態にする
+     */
+    private static final class Cursor implements StepCursor {
+        private static final int RANGE = 0;
+        private static final int COMPARE = 1;
+        private static final int WRITE = 2;
+        private static final int TAIL_LEFT = 3;
+        private static final int TAIL_RIGHT = 4;
+        private static final int DONE = 5;
 
-            recordStep(arr, temp, left, right, ca, cb, k, steps);
-            k++;
+        private final int[] arr;
+        private final int[] temp;
+        private final int[] schedule;
+        private final int merges;
+        private final long estimated;
+
+        private int m = 0;                  // いま何番目の merge か
+        private int left, mid, right;
+        private int i, j, k;
+        private int phase;
+
+        Cursor(int[] arr) {
+            this.arr = arr;
+            int n = arr.length;
+            this.temp = new int[n];
+            this.schedule = new int[Math.max(0, n - 1) * 3];
+            int[] count = {0};
+            buildSchedule(0, n - 1, schedule, count);
+            this.merges = count[0];
+
+            // 1回の merge は range 1 + write len + compare 最大 len-1
+            long sum = 0;
+            for (int p = 0; p < merges; p++) {
+                int len = schedule[p * 3 + 2] - schedule[p * 3] + 1;
+                sum += 2L * len;
+            }
+            this.estimated = sum;
+
+            this.phase = (merges > 0) ? RANGE : DONE;
         }
 
-        while (i <= mid) {
-            int ca = i;
-            temp[k] = arr[i++];
-            recordStep(arr, temp, left, right, ca, -1, k, steps);
-            k++;
+        @Override
+        public boolean hasNext() {
+            return phase != DONE;
         }
 
-        while (j <= right) {
-            int cb = j;
-            temp[k] = arr[j++];
-            recordStep(arr, temp, left, right, -1, cb, k, steps);
-            k++;
+        @Override
+        public void next(StepSink sink) {
+            switch (phase) {
+                case RANGE -> {
+                    left = schedule[m * 3];
+                    mid = schedule[m * 3 + 1];
+                    right = schedule[m * 3 + 2];
+                    i = left;
+                    j = mid + 1;
+                    k = left;
+                    sink.range(left, right);
+                    choosePhase(sink);
+                }
+                case COMPARE -> {
+                    sink.compare(i, j);
+                    if (arr[i] <= arr[j]) {
+                        temp[k] = arr[i++];
+                    } else {
+                        temp[k] = arr[j++];
+                    }
+                    phase = WRITE;
+                }
+                case WRITE -> {
+                    sink.write(k, temp[k]);
+                    k++;
+                    choosePhase(sink);
+                }
+                case TAIL_LEFT -> {
+                    temp[k] = arr[i++];
+                    sink.write(k, temp[k]);
+                    k++;
+                    choosePhase(sink);
+                }
+                case TAIL_RIGHT -> {
+                    temp[k] = arr[j++];
+                    sink.write(k, temp[k]);
+                    k++;
+                    choosePhase(sink);
+                }
+                default -> throw new IllegalStateException("no more steps");
+            }
         }
 
-        for (int t = left; t <= right; t++) {
-            arr[t] = temp[t];
+        private void choosePhase(StepSink sink) {
+            if (i <= mid && j <= right) {
+                phase = COMPARE;
+            } else if (i <= mid) {
+                phase = TAIL_LEFT;
+            } else if (j <= right) {
+                phase = TAIL_RIGHT;
+            } else {
+                // この merge は完了（temp から書き戻す分は表示しないので回数だけ渡す）
+                for (int t = left; t <= right; t++) {
+                    arr[t] = temp[t];
+                }
+                sink.writes(right - left + 1);
+                m++;
+                phase = (m < merges) ? RANGE : DONE;
+            }
         }
-    }
 
-    private static void recordStep(
-            int[] arr,
-            int[] temp,
-            int left,
-            int right,
-            int compareA,
-            int compareB,
-            int writeIndex,
-            List<SortStep> steps
-    ) {
-        int[] vis = arr.clone();
-        for (int p = left; p <= writeIndex; p++) {
-            vis[p] = temp[p];
+        @Override
+        public long estimatedSteps() {
+            return estimated;
         }
-        steps.add(new SortStep(vis, compareA, compareB, left, right));
     }
 }
@@ -0,0 +1,32 @@
+/**
+ * ソートが実際に行った操作の回数の受け取り先
+ * - sort(arr, counter) でも steps() の記録でも、アルゴリズム自身が正確な回数を渡す（表示側で推測しない）
+ * - 回数はまとめて渡してよい（ループの中では自分の変数で数え、最後に1回渡すと速さにほぼ影響しない）
+ *
+ * 数え方
+ * - compares : 要素どうし（またはピボットなど要素から取り出した値）の大小比較
+ * - swaps    : 2要素の入れ替え（同じ位置どうしは数えない）
+ * - reads    : 比較・入れ替え以外で要素を読むだけの操作（ヒストグラム作り・最小値/最大値の走査など）
+ * - writes   : 配列または作業用バッファへの1要素の書き込み（移動・コピーを含む。入れ替えは含めない）
+ */
+public interface OpCounter {
+
+    OpCounter NONE = new OpCounter() {
+        @Override
+        public void compares(long n) {}
+
+        @Override
+        public void swaps(long n) {}
+
+        @Override
+        public void reads(long n) {}
+
+        @Override
+        public void writes(long n) {}
+    };
+
+    void compares(long n);
+    void swaps(long n);
+    void reads(long n);
+    void writes(long n);
+}
@@ -0,0 +1,41 @@
+/**
+ * 回数をそのまま足し合わせるだけの OpCounter（sort(arr, counter) の結果を見るとき用）
+ */
+public class OpCounts implements OpCounter {
+    public long compares = 0;
+    public long swaps = 0;
+    public long reads = 0;
+    public long writes = 0;
+
+    @Override
+    public void compares(long n) {
+        compares += n;
+    }
+
+    @Override
+    public void swaps(long n) {
+        swaps += n;
+    }
+
+    @Override
+    public void reads(long n) {
+        reads += n;
+    }
+
+    @Override
+    public void writes(long n) {
+        writes += n;
+    }
+
+    /**
+     * 要素の書き込み回数（入れ替え1回は2回の書き込みとして数える）
+     */
+    public long elementWrites() {
+        return writes + 2 * swaps;
+    }
+
+    @Override
+    public String toString() {
+        return "compares=" + compares + " swaps=" + swaps + " reads=" + reads + " writes=" + writes;
+    }
+}
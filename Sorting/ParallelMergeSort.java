@@ -0,0 +1,425 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Parallel Merge Sort（ForkJoinPool で左右の半分を並列にソートする）
+ * - 作業用バッファは最初に1回だけ確保し、元配列と交互に使う（ping-pong）
+ * - SEQUENTIAL_CUTOFF 以下の範囲は1スレッドでソートする
+ * - 大きい merge（上のほうの階層）は merge 自体も分割して並列にする
+ * - steps : 同じ高さの merge を「同時に」進めるように1ステップずつ交互に出す
+ */
+public class ParallelMergeSort implements StepSortable {
+
+    private static final int SEQUENTIAL_CUTOFF = 1 << 13;       // これ以下は分割しない
+    private static final int PARALLEL_MERGE_CUTOFF = 1 << 16;   // これより大きい merge は並列化する
+    private static final int INSERTION_CUTOFF = 32;
+
+    private final ForkJoinPool pool;
+
+    public ParallelMergeSort() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public ParallelMergeSort(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    @Override
+    public String name() {
+        return "Parallel Merge Sort";
+    }
+
+    @Override
+    public Sorter onPool(ForkJoinPool pool) {
+        return new ParallelMergeSort(pool);
+    }
+
+    @Override
+    public void sort(int[] arr) {
+        sort(arr, OpCounter.NONE);
+    }
+
+    /**
+     * 回数はタスクごと（1スレッド部分・merge 1回ごと）に数えて、最後に Tally にまとめる
+     */
+    @Override
+    public void sort(int[] arr, OpCounter counter) {
+        int n = arr.length;
+        if (n <= 1) return;
+
+        // buf は arr と同じ内容で始める（ping-pong の前提）
+        int[] buf = arr.clone();
+        Tally tally = new Tally();
+        tally.writes.add(n);
+        if (n <= SEQUENTIAL_CUTOFF) {
+            OpCounts ops = new OpCounts();
+            sequentialSort(arr, buf, 0, n, ops);
+            tally.add(ops);
+        } else {
+            pool.invoke(new SortTask(arr, buf, 0, n, tally));
+        }
+        counter.compares(tally.compares.sum());
+        counter.writes(tally.writes.sum());
+    }
+
+    /**
+     * 複数のスレッドから回数を足す先（足すのはタスクごとに1回なので LongAdder で十分）
+     */
+    private static final class Tally {
+        final LongAdder compares = new LongAdder();
+        final LongAdder writes = new LongAdder();
+
+        void add(OpCounts ops) {
+            compares.add(ops.compares);
+            writes.add(ops.writes);
+        }
+    }
+
+    // ---------------- 並列ソート本体 ----------------
+
+    /**
+     * a[lo, hi) をソートする。b は同じ範囲に同じ内容を持つ作業用配列
+     * 子は b 側にソートし、最後に b の2つの半分を a に merge する
+     */
+    private static final class SortTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] a;
+        private final int[] b;
+        private final int lo;
+        private final int hi;
+        private final Tally tally;
+
+        SortTask(int[] a, int[] b, int lo, int hi, Tally tally) {
+            this.a = a;
+            this.b = b;
+            this.lo = lo;
+            this.hi = hi;
+            this.tally = tally;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo <= SEQUENTIAL_CUTOFF) {
+                OpCounts ops = new OpCounts();
+                sequentialSort(a, b, lo, hi, ops);
+                tally.add(ops);
+                return;
+            }
+
+            int mid = (lo + hi) >>> 1;
+            invokeAll(new SortTask(b, a, lo, mid, tally), new SortTask(b, a, mid, hi, tally));
+
+            tally.compares.increment();
+            if (b[mid - 1] <= b[mid]) {
+                System.arraycopy(b, lo, a, lo, hi - lo);
+                tally.writes.add(hi - lo);
+            } else {
+                new MergeTask(b, lo, mid, mid, hi, a, lo, tally).compute();
+            }
+        }
+    }
+
+    /**
+     * src[lo1, hi1) と src[lo2, hi2) を dst[out...] に merge する
+     * 大きいときは長いほうの真ん中の値で両方を分割し、左右を並列に merge する（安定）
+     */
+    private static final class MergeTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] src;
+        private final int lo1, hi1, lo2, hi2;
+        private final int[] dst;
+        private final int out;
+        private final Tally tally;
+
+        MergeTask(int[] src, int lo1, int hi1, int lo2, int hi2, int[] dst, int out, Tally tally) {
+            this.src = src;
+            this.lo1 = lo1;
+            this.hi1 = hi1;
+            this.lo2 = lo2;
+            this.hi2 = hi2;
+            this.dst = dst;
+            this.out = out;
+            this.tally = tally;
+        }
+
+        @Override
+        protected void compute() {
+            int n1 = hi1 - lo1;
+            int n2 = hi2 - lo2;
+            if (n1 + n2 <= PARALLEL_MERGE_CUTOFF) {
+                tally.compares.add(mergeRuns(src, lo1, hi1, lo2, hi2, dst, out));
+                tally.writes.add(n1 + n2);
+                return;
+            }
+
+            OpCounts ops = new OpCounts();
+            if (n1 >= n2) {
+                // 左の真ん中 x より小さい右の要素が x の前に来る（同じ値は左が先）
+                int m = (lo1 + hi1) >>> 1;
+                int j = lowerBound(src, lo2, hi2, src[m], ops);
+                int pos = out + (m - lo1) + (j - lo2);
+                dst[pos] = src[m];
+                ops.writes++;
+                tally.add(ops);
+                invokeAll(new MergeTask(src, lo1, m, lo2, j, dst, out, tally),
+                          new MergeTask(src, m + 1, hi1, j, hi2, dst, pos + 1, tally));
+            } else {
+                // 右の真ん中 y 以下の左の要素が y の前に来る
+                int m = (lo2 + hi2) >>> 1;
+                int i = upperBound(src, lo1, hi1, src[m], ops);
+                int pos = out + (i - lo1) + (m - lo2);
+                dst[pos] = src[m];
+                ops.writes++;
+                tally.add(ops);
+                invokeAll(new MergeTask(src, lo1, i, lo2, m, dst, out, tally),
+                          new MergeTask(src, i, hi1, m + 1, hi2, dst, pos + 1, tally));
+            }
+        }
+    }
+
+    // ---------------- 1スレッド部分 ----------------
+
+    /**
+     * a[lo, hi) をソートする（b は同じ内容の作業用）
+     */
+    private static void sequentialSort(int[] a, int[] b, int lo, int hi, OpCounts ops) {
+        if (hi - lo <= INSERTION_CUTOFF) {
+            insertionSort(a, lo, hi, ops);
+            return;
+        }
+
+        int mid = (lo + hi) >>> 1;
+        sequentialSort(b, a, lo, mid, ops);
+        sequentialSort(b, a, mid, hi, ops);
+
+        // すでに左右の順番が正しければ merge しない
+        ops.compares++;
+        ops.writes += hi - lo;
+        if (b[mid - 1] <= b[mid]) {
+            System.arraycopy(b, lo, a, lo, hi - lo);
+            return;
+        }
+        ops.compares += mergeRuns(b, lo, mid, mid, hi, a, lo);
+    }
+
+    // 回数は内側のループが終わってから、ずらした個数で数える
+    private static void insertionSort(int[] a, int lo, int hi, OpCounts ops) {
+        for (int i = lo + 1; i < hi; i++) {
+            int v = a[i];
+            int j = i - 1;
+            while (j >= lo && a[j] > v) {
+                a[j + 1] = a[j];
+                j--;
+            }
+            a[j + 1] = v;
+
+            int shifted = i - 1 - j;
+            ops.compares += shifted + (j >= lo ? 1 : 0);
+            ops.writes += shifted + 1;
+        }
+    }
+
+    /**
+     * @return 比較の回数（どちらかが尽きるまでに置いた個数と同じ）
+     */
+    private static int mergeRuns(int[] src, int lo1, int hi1, int lo2, int hi2, int[] dst, int out) {
+        int i = lo1, j = lo2, k = out;
+        while (i < hi1 && j < hi2) {
+            if (src[i] <= src[j]) {
+                dst[k++] = src[i++];
+            } else {
+                dst[k++] = src[j++];
+            }
+        }
+        int compares = k - out;
+        while (i < hi1) dst[k++] = src[i++];
+        while (j < hi2) dst[k++] = src[j++];
+        return compares;
+    }
+
+    // 最初の src[p] >= key
+    private static int lowerBound(int[] src, int lo, int hi, int key, OpCounts ops) {
+        while (lo < hi) {
+            int m = (lo + hi) >>> 1;
+            ops.compares++;
+            if (src[m] < key) lo = m + 1; else hi = m;
+        }
+        return lo;
+    }
+
+    // 最初の src[p] > key
+    private static int upperBound(int[] src, int lo, int hi, int key, OpCounts ops) {
+        while (lo < hi) {
+            int m = (lo + hi) >>> 1;
+            ops.compares++;
+            if (src[m] <= key) lo = m + 1; else hi = m;
+        }
+        return lo;
+    }
+
+    // ---------------- GUI用 ----------------
+
+    @Override
+    public StepCursor cursor(int[] input) {
+        return new Cursor(input.clone(), Math.max(2, pool.getParallelism()));
+    }
+
+    /**
+     * merge の予定表を「高さ」（葉からの段数）ごとにまとめる
+     * 同じ高さの merge は範囲が重ならず、子はすべて低い段にあるので同時に進めてよい
+     * 各要素は {left, mid, right}（MergeSort と同じ閉区間）
+     */
+    private static int buildLevels(int left, int right, List<List<int[]>> levels) {
+        if (left >= right) return 0;
+
+        int mid = (left + right) / 2;
+        int h = 1 + Math.max(buildLevels(left, mid, levels), buildLevels(mid + 1, right, levels));
+
+        while (levels.size() < h) levels.add(new ArrayList<>());
+        levels.get(h - 1).add(new int[] {left, mid, right});
+        return h;
+    }
+
+    /**
+     * 同じ高さの merge を workers 個ずつ「波」にして、1ステップずつ順番に進める
+     * - 波の開始で range（その波が触る範囲全体）を出す
+     * - 各 merge は compare → write（片側が尽きたら write だけ）
+     */
+    private static final class Cursor implements StepCursor {
+        private final int[] arr;
+        private final int[] temp;
+        private final List<int[]> merges = new ArrayList<>();   // 高さ順に並べた予定表
+        private final int[] levelEnds;                          // 各高さの終わりの位置（merges 上）
+        private final int workers;
+        private final long estimated;
+
+        // いまの波（merges[waveStart, waveStart + waveSize)）
+        private int waveStart = 0;
+        private int waveSize = 0;
+        private boolean rangeEmitted = false;
+        private final int[] mi, mj, mk;
+        private final boolean[] compared;
+        private int turn = 0;
+        private int active = 0;
+
+        Cursor(int[] arr, int workers) {
+            this.arr = arr;
+            this.temp = new int[arr.length];
+            this.workers = workers;
+            this.mi = new int[workers];
+            this.mj = new int[workers];
+            this.mk = new int[workers];
+            this.compared = new boolean[workers];
+
+            List<List<int[]>> levels = new ArrayList<>();
+            buildLevels(0, arr.length - 1, levels);
+            this.levelEnds = new int[levels.size()];
+            for (int h = 0; h < levels.size(); h++) {
+                merges.addAll(levels.get(h));
+                levelEnds[h] = merges.size();
+            }
+
+            long sum = 0;
+            for (int[] m : merges) sum += 2L * (m[2] - m[0] + 1);
+            this.estimated = sum + merges.size() / workers + 1;
+
+            startWave();
+        }
+
+        private void startWave() {
+            waveSize = 0;
+            if (waveStart >= merges.size()) return;
+
+            // 波は同じ高さの中だけで作る
+            int levelEnd = merges.size();
+            for (int end : levelEnds) {
+                if (end > waveStart) {
+                    levelEnd = end;
+                    break;
+                }
+            }
+            waveSize = Math.min(levelEnd, waveStart + workers) - waveStart;
+
+            for (int w = 0; w < waveSize; w++) {
+                int[] m = merges.get(waveStart + w);
+                mi[w] = m[0];
+                mj[w] = m[1] + 1;
+                mk[w] = m[0];
+                compared[w] = false;
+            }
+            active = waveSize;
+            turn = 0;
+            rangeEmitted = false;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return waveSize > 0;
+        }
+
+        @Override
+        public void next(StepSink sink) {
+            if (waveSize == 0) throw new IllegalStateException("no more steps");
+
+            if (!rangeEmitted) {
+                int from = merges.get(waveStart)[0];
+                int to = merges.get(waveStart + waveSize - 1)[2];
+                sink.range(from, to);
+                rangeEmitted = true;
+                return;
+            }
+
+            // まだ終わっていない merge を順番に選ぶ
+            while (finished(turn)) turn = (turn + 1) % waveSize;
+
+            int w = turn;
+            int[] m = merges.get(waveStart + w);
+            int mid = m[1], right = m[2];
+            int i = mi[w], j = mj[w], k = mk[w];
+
+            if (i <= mid && j <= right && !compared[w]) {
+                sink.compare(i, j);
+                compared[w] = true;
+                return;   // 同じ merge の write は次にこの merge の番が来たときに出す
+            }
+
+            if (i <= mid && (j > right || arr[i] <= arr[j])) {
+                temp[k] = arr[i++];
+            } else {
+                temp[k] = arr[j++];
+            }
+            sink.write(k, temp[k]);
+            mi[w] = i;
+            mj[w] = j;
+            mk[w] = k + 1;
+            compared[w] = false;
+
+            if (finished(w)) {
+                // temp から書き戻す分は表示しないので回数だけ渡す
+                for (int t = m[0]; t <= right; t++) arr[t] = temp[t];
+                sink.writes(right - m[0] + 1);
+                active--;
+            }
+            turn = (turn + 1) % waveSize;
+
+            if (active == 0) {
+                waveStart += waveSize;
+                startWave();
+            }
+        }
+
+        private boolean finished(int w) {
+            return mk[w] > merges.get(waveStart + w)[2];
+        }
+
+        @Override
+        public long estimatedSteps() {
+            return estimated;
+        }
+    }
+}
@@ -0,0 +1,465 @@
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntConsumer;
+
+/**
+ * Parallel Sample Sort（値の範囲でバケツに分けてから、バケツごとに並列でソートする）
+ * - 配列から多めに標本を取ってソートし、等間隔に選んだ値を「区切り値」にする
+ * - 配列をスレッド数のブロックに分け、ブロックごとにバケツのヒストグラムを作る（並列）
+ * - ヒストグラムから各ブロックの書き込み位置が決まるので、ロックなしで並列にバケツへ振り分ける
+ * - バケツは値の順に並んでいるので、各バケツを既存の Sorter でソートして並べるだけ（最後の merge がない）
+ * - 区切り値に同じ値が並ぶ（重複が多い）ときは、その値だけのバケツを作り、ソートせずに埋める
+ */
+public class ParallelSampleSort implements StepSortable {
+
+    private static final int SEQUENTIAL_CUTOFF = 1 << 14;   // これ以下は bucketSorter にそのまま任せる
+    private static final int BUCKETS_PER_THREAD = 4;        // バケツの大きさのばらつきを均すため多めに分ける
+    private static final int OVERSAMPLING = 32;             // 区切り値1つあたりの標本数
+
+    /** 計測する段階 */
+    public enum Phase {
+        SAMPLE,         // 標本を取ってソートし、区切り値を決める
+        CLASSIFY,       // ブロックごとのヒストグラム
+        SCATTER,        // バケツへの振り分け
+        BUCKET_SORT     // バケツごとのソートと書き戻し
+    }
+
+    private final ForkJoinPool pool;
+    private final StepSortable bucketSorter;
+
+    // 並列で分けたときの段階ごとの合計時間（同じインスタンスを複数のスレッドから同時に呼んでもよいように LongAdder）
+    private final LongAdder[] phaseNanos = newAdders(Phase.values().length);
+    private final LongAdder parallelRuns = new LongAdder();
+
+    public ParallelSampleSort() {
+        this(ForkJoinPool.commonPool(), new IntroSort());
+    }
+
+    /**
+     * pool は呼び出し側のもの（閉じるのも呼び出し側）
+     */
+    public ParallelSampleSort(ForkJoinPool pool) {
+        this(pool, new IntroSort());
+    }
+
+    public ParallelSampleSort(ForkJoinPool pool, StepSortable bucketSorter) {
+        this.pool = pool;
+        this.bucketSorter = bucketSorter;
+    }
+
+    @Override
+    public String name() {
+        return "Parallel Sample Sort";
+    }
+
+    @Override
+    public Sorter onPool(ForkJoinPool pool) {
+        return new ParallelSampleSort(pool, bucketSorter);
+    }
+
+    @Override
+    public void sort(int[] arr) {
+        sort(arr, OpCounter.NONE);
+    }
+
+    /**
+     * 回数は段階ごとにまとめて渡す
+     * - 標本を読む・ヒストグラムを作る : reads（標本のソートは bucketSorter の回数）
+     * - バケツを決める二分探索       : compares（結果のバケツから回数が決まるので、ヒストグラムから計算する）
+     * - 振り分け・書き戻し           : writes
+     * - バケツのソートはバケツごとの OpCounts に数えてから、最後に足す
+     */
+    @Override
+    public void sort(int[] arr, OpCounter counter) {
+        int n = arr.length;
+        if (n <= 1) return;
+
+        int threads = pool.getParallelism();
+        if (n <= SEQUENTIAL_CUTOFF || threads < 2) {
+            bucketSorter.sort(arr, counter);
+            return;
+        }
+
+        long t0 = System.nanoTime();
+
+        int[] splitters = chooseSplitters(arr, threads * BUCKETS_PER_THREAD, counter);
+        int buckets = 2 * splitters.length + 1;
+        int blocks = threads;
+
+        long t1 = System.nanoTime();
+
+        // hist[t][b] : ブロック t の中でバケツ b に入る個数
+        int[][] hist = new int[blocks][buckets];
+        pool.invoke(new Each(0, blocks, t -> {
+            int[] h = hist[t];
+            for (int i = blockStart(n, blocks, t), end = blockStart(n, blocks, t + 1); i < end; i++) {
+                h[bucketOf(arr[i], splitters)]++;
+            }
+        }));
+
+        counter.reads(n);
+        counter.compares(classifyCompares(hist, splitters.length));
+
+        // バケツの開始位置と、各ブロックがバケツ内で書き始める位置（hist をそのまま置き換える）
+        int[] start = new int[buckets + 1];
+        for (int b = 0; b < buckets; b++) {
+            int sum = 0;
+            for (int t = 0; t < blocks; t++) {
+                int c = hist[t][b];
+                hist[t][b] = sum;
+                sum += c;
+            }
+            start[b + 1] = start[b] + sum;
+        }
+
+        long t2 = System.nanoTime();
+
+        // 同じ値だけのバケツ（奇数番）は個数だけわかればよいので配列を作らない
+        int[][] bucket = new int[buckets][];
+        long scattered = 0;
+        for (int b = 0; b < buckets; b += 2) {
+            bucket[b] = new int[start[b + 1] - start[b]];
+            scattered += bucket[b].length;
+        }
+        pool.invoke(new Each(0, blocks, t -> {
+            int[] pos = hist[t];
+            for (int i = blockStart(n, blocks, t), end = blockStart(n, blocks, t + 1); i < end; i++) {
+                int v = arr[i];
+                int b = bucketOf(v, splitters);
+                if ((b & 1) == 0) bucket[b][pos[b]++] = v;
+            }
+        }));
+        counter.compares(classifyCompares(start, splitters.length));
+        counter.writes(scattered);
+
+        long t3 = System.nanoTime();
+
+        OpCounts[] bucketOps = new OpCounts[buckets];
+        pool.invoke(new Each(0, buckets, b -> {
+            if ((b & 1) == 1) {
+                Arrays.fill(arr, start[b], start[b + 1], splitters[b >> 1]);
+                return;
+            }
+            int[] part = bucket[b];
+            OpCounts ops = new OpCounts();
+            bucketSorter.sort(part, ops);
+            bucketOps[b] = ops;
+            System.arraycopy(part, 0, arr, start[b], part.length);
+        }));
+        for (OpCounts ops : bucketOps) {
+            if (ops == null) continue;
+            counter.compares(ops.compares);
+            counter.swaps(ops.swaps);
+            counter.reads(ops.reads);
+            counter.writes(ops.writes);
+        }
+        counter.writes(n);
+
+        long t4 = System.nanoTime();
+
+        phaseNanos[Phase.SAMPLE.ordinal()].add(t1 - t0);
+        phaseNanos[Phase.CLASSIFY.ordinal()].add(t2 - t1);
+        phaseNanos[Phase.SCATTER.ordinal()].add(t3 - t2);
+        phaseNanos[Phase.BUCKET_SORT.ordinal()].add(t4 - t3);
+        parallelRuns.increment();
+    }
+
+    private static int blockStart(int n, int blocks, int t) {
+        return (int) ((long) n * t / blocks);
+    }
+
+    /**
+     * 標本から区切り値を選ぶ（ソート済み・重複なし）
+     * 区切り値が d[0] < d[1] < ... < d[m-1] のとき、バケツは
+     *   0: v < d[0],  1: v == d[0],  2: d[0] < v < d[1],  3: v == d[1], ...,  2m: v > d[m-1]
+     */
+    private int[] chooseSplitters(int[] arr, int buckets, OpCounter counter) {
+        int[] idx = sampleIndices(arr.length, buckets);
+        int[] sample = new int[idx.length];
+        for (int i = 0; i < idx.length; i++) sample[i] = arr[idx[i]];
+        counter.reads(idx.length);
+        return splittersFrom(sample, buckets, counter);
+    }
+
+    private static int[] sampleIndices(int n, int buckets) {
+        int size = (int) Math.min(n, (long) buckets * OVERSAMPLING);
+        int[] idx = new int[size];
+        SplittableRandom rnd = new SplittableRandom(n);    // 同じ入力なら同じ区切り値になるように固定
+        for (int i = 0; i < size; i++) idx[i] = rnd.nextInt(n);
+        return idx;
+    }
+
+    private int[] splittersFrom(int[] sample, int buckets, OpCounter counter) {
+        bucketSorter.sort(sample, counter);
+
+        int[] d = new int[buckets - 1];
+        int m = 0;
+        for (int i = 1; i < buckets; i++) {
+            int v = sample[(int) ((long) i * sample.length / buckets)];
+            if (m == 0 || d[m - 1] != v) d[m++] = v;     // 同じ区切り値は1つにまとめる
+        }
+        return Arrays.copyOf(d, m);
+    }
+
+    private static int bucketOf(int v, int[] d) {
+        // 最初の d[j] >= v
+        int lo = 0, hi = d.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (d[mid] < v) lo = mid + 1; else hi = mid;
+        }
+        return (lo < d.length && d[lo] == v) ? 2 * lo + 1 : 2 * lo;
+    }
+
+    /**
+     * 全要素に bucketOf を1回ずつ使ったときの比較回数
+     * 二分探索の道筋は結果の位置 lo だけで決まるので、バケツごとの個数から計算できる
+     * （バケツ 2*lo と 2*lo+1 はどちらも位置 lo）
+     *
+     * @param counts バケツごとの個数（int[blocks][buckets] のヒストグラム）、
+     *               またはバケツの開始位置（int[buckets+1]、隣との差が個数）
+     */
+    private static long classifyCompares(int[][] counts, int m) {
+        long[] perLo = searchCompares(m);
+        long total = 0;
+        for (int[] h : counts) {
+            for (int b = 0; b < h.length; b++) total += h[b] * perLo[b >> 1];
+        }
+        return total;
+    }
+
+    private static long classifyCompares(int[] start, int m) {
+        long[] perLo = searchCompares(m);
+        long total = 0;
+        for (int b = 0; b + 1 < start.length; b++) total += (long) (start[b + 1] - start[b]) * perLo[b >> 1];
+        return total;
+    }
+
+    // perLo[lo] : 区切り値 m 個の二分探索が位置 lo で終わるまでの比較回数（最後の d[lo] == v を含む）
+    private static long[] searchCompares(int m) {
+        long[] perLo = new long[m + 1];
+        for (int target = 0; target <= m; target++) {
+            int lo = 0, hi = m;
+            long c = 0;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                c++;
+                if (mid < target) lo = mid + 1; else hi = mid;
+            }
+            perLo[target] = c + (target < m ? 1 : 0);
+        }
+        return perLo;
+    }
+
+    /**
+     * body(lo) ... body(hi-1) を pool の中で並列に実行する
+     */
+    private static final class Each extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int lo;
+        private final int hi;
+        private final IntConsumer body;
+
+        Each(int lo, int hi, IntConsumer body) {
+            this.lo = lo;
+            this.hi = hi;
+            this.body = body;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo == 1) {
+                body.accept(lo);
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            invokeAll(new Each(lo, mid, body), new Each(mid, hi, body));
+        }
+    }
+
+    // ---------------- 段階ごとの時間 ----------------
+
+    private static LongAdder[] newAdders(int n) {
+        LongAdder[] adders = new LongAdder[n];
+        for (int i = 0; i < n; i++) adders[i] = new LongAdder();
+        return adders;
+    }
+
+    public long phaseNanos(Phase phase) {
+        return phaseNanos[phase.ordinal()].sum();
+    }
+
+    /** 並列で分けた（SEQUENTIAL_CUTOFF より大きかった）回数 */
+    public long parallelRuns() {
+        return parallelRuns.sum();
+    }
+
+    /**
+     * 走っているソートがあると、その分は消えずに残ることがある
+     */
+    public void resetPhaseTimings() {
+        for (LongAdder a : phaseNanos) a.reset();
+        parallelRuns.reset();
+    }
+
+    /**
+     * 1回あたりの段階ごとの平均時間（例: "SAMPLE=12.3us CLASSIFY=... (runs=40)"）
+     */
+    public String phaseReport() {
+        long runs = parallelRuns();
+        if (runs == 0) return "(no parallel runs)";
+        StringBuilder sb = new StringBuilder();
+        for (Phase p : Phase.values()) {
+            sb.append(String.format("%s=%.1fus ", p, phaseNanos(p) / 1_000.0 / runs));
+        }
+        return sb.append("(runs=").append(runs).append(')').toString();
+    }
+
+    // ---------------- GUI用 ----------------
+
+    @Override
+    public StepCursor cursor(int[] input) {
+        return SortEvents.steps(this, input).cursor();
+    }
+
+    /**
+     * sort と同じ手順を記録する（小さい配列でも必ずバケツに分ける。ブロックは順番に処理する）
+     * - 標本       : read(i) で標本の位置を読む
+     * - ヒストグラム: read(i) で全要素を読む
+     * - 振り分け   : write(k, v) でバケツの位置へ書き込んでいく（表示上は配列を上書き）
+     * - バケツ     : range でバケツを示し、bucketSorter の手順をその位置にずらして流す
+     */
+    @Override
+    public void record(int[] input, StepSink steps) {
+        int[] arr = input.clone();
+        int n = arr.length;
+        if (n <= 1) return;
+
+        int threads = Math.max(2, pool.getParallelism());
+        int blocks = threads;
+
+        steps.range(0, n - 1);
+        int[] idx = sampleIndices(n, threads * BUCKETS_PER_THREAD);
+        int[] sample = new int[idx.length];
+        for (int i = 0; i < idx.length; i++) {
+            steps.read(idx[i]);
+            sample[i] = arr[idx[i]];
+        }
+        int[] splitters = splittersFrom(sample, threads * BUCKETS_PER_THREAD, steps);
+        int buckets = 2 * splitters.length + 1;
+
+        int[][] hist = new int[blocks][buckets];
+        for (int t = 0; t < blocks; t++) {
+            steps.range(blockStart(n, blocks, t), blockStart(n, blocks, t + 1) - 1);
+            for (int i = blockStart(n, blocks, t), end = blockStart(n, blocks, t + 1); i < end; i++) {
+                steps.read(i);
+                hist[t][bucketOf(arr[i], splitters)]++;
+            }
+        }
+        steps.compares(classifyCompares(hist, splitters.length));
+
+        int[] start = new int[buckets + 1];
+        int[][] pos = new int[blocks][buckets];
+        for (int b = 0; b < buckets; b++) {
+            int sum = start[b];
+            for (int t = 0; t < blocks; t++) {
+                pos[t][b] = sum;
+                sum += hist[t][b];
+            }
+            start[b + 1] = sum;
+        }
+
+        // arr は表示と同じく上書きされるので、読み出しは元の値から
+        int[] src = input.clone();
+        steps.range(0, n - 1);
+        for (int t = 0; t < blocks; t++) {
+            for (int i = blockStart(n, blocks, t), end = blockStart(n, blocks, t + 1); i < end; i++) {
+                int v = src[i];
+                int k = pos[t][bucketOf(v, splitters)]++;
+                arr[k] = v;
+                steps.write(k, v);
+            }
+        }
+        steps.compares(classifyCompares(start, splitters.length));
+
+        for (int b = 0; b < buckets; b++) {
+            int lo = start[b];
+            int hi = start[b + 1];
+            if (hi - lo == 0) continue;
+            steps.range(lo, hi - 1);
+            if ((b & 1) == 1 || hi - lo == 1) continue;
+
+            bucketSorter.record(Arrays.copyOfRange(arr, lo, hi), new Shifted(steps, lo));
+        }
+
+        steps.range(-1, -1);
+        steps.compare(-1, -1);
+    }
+
+    /**
+     * バケツの中のステップを配列全体の位置にずらして流す（回数はそのまま）
+     */
+    private static final class Shifted implements StepSink {
+        private final StepSink sink;
+        private final int offset;
+
+        Shifted(StepSink sink, int offset) {
+            this.sink = sink;
+            this.offset = offset;
+        }
+
+        // -1（強調なし）はそのまま
+        private int shift(int index) {
+            return index < 0 ? index : index + offset;
+        }
+
+        @Override
+        public void compare(int a, int b) {
+            sink.compare(shift(a), shift(b));
+        }
+
+        @Override
+        public void swap(int a, int b) {
+            sink.swap(shift(a), shift(b));
+        }
+
+        @Override
+        public void write(int index, int value) {
+            sink.write(shift(index), value);
+        }
+
+        @Override
+        public void read(int index) {
+            sink.read(shift(index));
+        }
+
+        @Override
+        public void range(int from, int to) {
+            sink.range(shift(from), shift(to));
+        }
+
+        @Override
+        public void compares(long n) {
+            sink.compares(n);
+        }
+
+        @Override
+        public void swaps(long n) {
+            sink.swaps(n);
+        }
+
+        @Override
+        public void reads(long n) {
+            sink.reads(n);
+        }
+
+        @Override
+        public void writes(long n) {
+            sink.writes(n);
+        }
+    }
+}
@@ -0,0 +1,163 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 性能の基準値（SortTestEngine --baseline で使う）
+ * - (sorter, pattern, size) ごとに、1回ずつの測定値（ns）をそのままファイルに残す
+ * - 次の実行では中央値の比と Mann-Whitney の U 検定（片側）で「遅くなった」かを判定する
+ *   測定のばらつきを前提にするので、たまたま1回遅かっただけでは SLOWER にならない
+ *   ALPHA と MIN_EFFECT の両方を満たしたときだけ SLOWER / FASTER にする
+ *
+ * ファイル形式（1行1キー、タブ区切り）: sorter  pattern  size  ns,ns,ns,...
+ */
+final class PerfBaseline {
+
+    static final double ALPHA = 0.01;           // これより p 値が小さければ有意
+    static final double MIN_EFFECT = 0.15;      // 中央値が15%以上変わっていなければ無視する（JVM ごとの JIT の当たり外れで10%くらいは揺れる）
+
+    record Key(String sorter, DataGenerator.Pattern pattern, int size) {}
+
+    enum Verdict {
+        NEW,        // 基準値がない
+        SAME,
+        SLOWER,
+        FASTER
+    }
+
+    private PerfBaseline() {}
+
+    // ---------------- ファイル ----------------
+
+    static Map<Key, long[]> load(Path path) throws IOException {
+        Map<Key, long[]> map = new LinkedHashMap<>();
+        List<String> lines = Files.readAllLines(path);
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i);
+            if (line.isBlank() || line.startsWith("#")) continue;
+
+            String[] f = line.split("\t");
+            if (f.length != 4) throw new IOException(path + ":" + (i + 1) + ": expected 4 tab-separated fields");
+            try {
+                Key key = new Key(f[0], DataGenerator.Pattern.valueOf(f[1]), Integer.parseInt(f[2]));
+                map.put(key, Arrays.stream(f[3].split(",")).mapToLong(Long::parseLong).toArray());
+            } catch (IllegalArgumentException e) {
+                throw new IOException(path + ":" + (i + 1) + ": " + e.getMessage(), e);
+            }
+        }
+        return map;
+    }
+
+    static void save(Path path, Map<Key, long[]> map) throws IOException {
+        try (BufferedWriter w = Files.newBufferedWriter(path)) {
+            w.write("# sorter\tpattern\tsize\tnanoseconds per sort (one value per measurement)\n");
+            for (Map.Entry<Key, long[]> e : map.entrySet()) {
+                Key k = e.getKey();
+                StringBuilder sb = new StringBuilder();
+                for (long v : e.getValue()) {
+                    if (sb.length() > 0) sb.append(',');
+                    sb.append(v);
+                }
+                w.write(k.sorter() + "\t" + k.pattern() + "\t" + k.size() + "\t" + sb + "\n");
+            }
+        }
+    }
+
+    static long[] concat(long[] a, long[] b) {
+        long[] c = Arrays.copyOf(a, a.length + b.length);
+        System.arraycopy(b, 0, c, a.length, b.length);
+        return c;
+    }
+
+    static long[] scale(long[] samples, double factor) {
+        long[] s = new long[samples.length];
+        for (int i = 0; i < s.length; i++) s[i] = Math.round(samples[i] * factor);
+        return s;
+    }
+
+    // ---------------- 統計 ----------------
+
+    /**
+     * p（0〜1）の位置の値（線形補間）
+     */
+    static double percentile(long[] samples, double p) {
+        long[] s = samples.clone();
+        Arrays.sort(s);
+        double x = p * (s.length - 1);
+        int i = (int) Math.floor(x);
+        int j = Math.min(s.length - 1, i + 1);
+        return s[i] + (s[j] - s[i]) * (x - i);
+    }
+
+    static double median(long[] samples) {
+        return percentile(samples, 0.5);
+    }
+
+    static Verdict compare(long[] base, long[] now) {
+        if (base == null || base.length == 0) return Verdict.NEW;
+
+        double ratio = median(now) / median(base);
+        if (ratio > 1 + MIN_EFFECT && pGreater(now, base) < ALPHA) return Verdict.SLOWER;
+        if (ratio < 1 - MIN_EFFECT && pGreater(base, now) < ALPHA) return Verdict.FASTER;
+        return Verdict.SAME;
+    }
+
+    /**
+     * 中央値が動いた向きの片側 p 値（表示用）
+     */
+    static double pValue(long[] base, long[] now) {
+        return median(now) >= median(base) ? pGreater(now, base) : pGreater(base, now);
+    }
+
+    /**
+     * Mann-Whitney の U 検定（片側、正規近似）: 「a のほうが大きい」の p 値
+     */
+    static double pGreater(long[] a, long[] b) {
+        int n1 = a.length;
+        int n2 = b.length;
+        long[] all = new long[n1 + n2];
+        System.arraycopy(a, 0, all, 0, n1);
+        System.arraycopy(b, 0, all, n1, n2);
+        long[] sorted = all.clone();
+        Arrays.sort(sorted);
+
+        // a の順位の合計（同じ値は平均順位）
+        double rankSum = 0;
+        for (long v : a) {
+            int lo = lowerBound(sorted, v);
+            int hi = lowerBound(sorted, v + 1);
+            rankSum += (lo + 1 + hi) / 2.0;
+        }
+
+        double u = rankSum - n1 * (n1 + 1) / 2.0;
+        double mean = n1 * (double) n2 / 2.0;
+        double sd = Math.sqrt(n1 * (double) n2 * (n1 + n2 + 1) / 12.0);
+        if (sd == 0) return 1.0;
+
+        double z = (u - mean - 0.5) / sd;
+        return 1.0 - normalCdf(z);
+    }
+
+    private static int lowerBound(long[] s, long key) {
+        int lo = 0, hi = s.length;
+        while (lo < hi) {
+            int m = (lo + hi) >>> 1;
+            if (s[m] < key) lo = m + 1; else hi = m;
+        }
+        return lo;
+    }
+
+    // 標準正規分布の累積分布関数（Abramowitz-Stegun 7.1.26 の erf 近似、誤差 1.5e-7）
+    private static double normalCdf(double z) {
+        double x = Math.abs(z) / Math.sqrt(2);
+        double t = 1.0 / (1.0 + 0.3275911 * x);
+        double erf = 1 - ((((1.061405429 * t - 1.453152027) * t + 1.421413741) * t - 0.284496736) * t + 0.254829592)
+                * t * Math.exp(-x * x);
+        return z >= 0 ? 0.5 * (1 + erf) : 0.5 * (1 - erf);
+    }
+}
@@ -0,0 +1,317 @@
+/**
+ * Radix Sort（LSD: 下の桁から8bitずつ、4パスで並べる）
+ * - 比較をしないので O(n) × 4パス
+ * - 符号付き int は最上位ビットを反転してから桁を取る（負の数が先に来る）
+ * - 4桁ぶんのヒストグラムは最初の1パスでまとめて作る
+ * - 全要素で同じ値の桁（例: 値が 1..100 なら上の3桁）はパスごと飛ばす
+ * - 作業用バッファは n 個の配列を1つだけ使い、元配列と交互に使う
+ */
+public class RadixSort implements StepSortable, LongSorter, DoubleSorter {
+
+    private static final int BITS = 8;
+    private static final int RADIX = 1 << BITS;
+    private static final int MASK = RADIX - 1;
+    private static final int PASSES = Integer.SIZE / BITS;
+    private static final int LONG_PASSES = Long.SIZE / BITS;
+    private static final int INSERTION_THRESHOLD = 64;
+
+    @Override
+    public String name() {
+        return "Radix Sort (LSD)";
+    }
+
+    @Override
+    public void sort(int[] arr) {
+        sort(arr, OpCounter.NONE);
+    }
+
+    /**
+     * 回数はパスの数から計算できるので、ループの中では数えない
+     * - reads  : ヒストグラムを作るときに全要素を1回ずつ読む
+     * - writes : 飛ばさなかったパスごとに n 回、最後に元配列へ戻すなら さらに n 回
+     */
+    @Override
+    public void sort(int[] arr, OpCounter counter) {
+        int n = arr.length;
+        if (n <= 1) return;
+        if (n <= INSERTION_THRESHOLD) {
+            insertionSort(arr, n, counter);
+            return;
+        }
+
+        int[][] counts = histograms(arr);
+        counter.reads(n);
+
+        int[] src = arr;
+        int[] dst = null;
+        for (int pass = 0; pass < PASSES; pass++) {
+            int[] count = counts[pass];
+            if (isSkippable(count, n)) continue;
+
+            if (dst == null) dst = new int[n];
+            int shift = pass * BITS;
+            int[] offset = prefixSums(count);
+            for (int i = 0; i < n; i++) {
+                int v = src[i];
+                dst[offset[digit(v, shift)]++] = v;
+            }
+            counter.writes(n);
+
+            int[] t = src;
+            src = dst;
+            dst = t;
+        }
+
+        if (src != arr) {
+            System.arraycopy(src, 0, arr, 0, n);
+            counter.writes(n);
+        }
+    }
+
+    static int digit(int v, int shift) {
+        return ((v ^ Integer.MIN_VALUE) >>> shift) & MASK;
+    }
+
+    private static int[][] histograms(int[] arr) {
+        int[][] counts = new int[PASSES][RADIX];
+        for (int v : arr) {
+            int u = v ^ Integer.MIN_VALUE;
+            for (int pass = 0; pass < PASSES; pass++) {
+                counts[pass][(u >>> (pass * BITS)) & MASK]++;
+            }
+        }
+        return counts;
+    }
+
+    // 1つのバケツに全要素が入る桁は並び順を変えないので飛ばせる
+    private static boolean isSkippable(int[] count, int n) {
+        for (int c : count) {
+            if (c == n) return true;
+            if (c != 0) return false;
+        }
+        return false;
+    }
+
+    private static int[] prefixSums(int[] count) {
+        int[] offset = new int[RADIX];
+        int sum = 0;
+        for (int b = 0; b < RADIX; b++) {
+            offset[b] = sum;
+            sum += count[b];
+        }
+        return offset;
+    }
+
+    private static void insertionSort(int[] a, int n, OpCounter counter) {
+        long compares = 0;
+        long writes = 0;
+        for (int i = 1; i < n; i++) {
+            int v = a[i];
+            int j = i - 1;
+            while (j >= 0 && a[j] > v) {
+                a[j + 1] = a[j];
+                j--;
+            }
+            a[j + 1] = v;
+
+            int shifted = i - 1 - j;
+            compares += shifted + (j >= 0 ? 1 : 0);
+            writes += shifted + 1;
+        }
+        counter.compares(compares);
+        counter.writes(writes);
+    }
+
+    // ---------------- long[] / double[] ----------------
+    // int[] と同じく8bitずつ（8パス）。ヒストグラムは最初の1パスでまとめて作り、同じ値の桁は飛ばす
+    // 上の桁が揃いやすいタイムスタンプなどは、実際に回るパスがずっと少なくなる
+
+    @Override
+    public void sort(long[] arr) {
+        sort(arr, null);
+    }
+
+    /**
+     * keys を並べ、payload（null でなければ keys と同じ長さ）の要素も同じ位置へ動かす
+     * LSD は1パスごとに安定なので、同じキーの payload は元の順番のまま（RecordSort の argsort は payload に添字を入れる）
+     */
+    static void sort(long[] keys, int[] payload) {
+        int n = keys.length;
+        if (n <= 1) return;
+        if (n <= INSERTION_THRESHOLD) {
+            insertionSort(keys, payload, n);
+            return;
+        }
+
+        int[][] counts = new int[LONG_PASSES][RADIX];
+        for (long v : keys) {
+            long u = v ^ Long.MIN_VALUE;
+            for (int pass = 0; pass < LONG_PASSES; pass++) {
+                counts[pass][(int) (u >>> (pass * BITS)) & MASK]++;
+            }
+        }
+
+        long[] src = keys;
+        long[] dst = null;
+        int[] srcP = payload;
+        int[] dstP = null;
+        for (int pass = 0; pass < LONG_PASSES; pass++) {
+            int[] count = counts[pass];
+            if (isSkippable(count, n)) continue;
+
+            if (dst == null) {
+                dst = new long[n];
+                if (payload != null) dstP = new int[n];
+            }
+            int shift = pass * BITS;
+            int[] offset = prefixSums(count);
+            if (payload == null) {
+                for (int i = 0; i < n; i++) {
+                    long v = src[i];
+                    dst[offset[(int) ((v ^ Long.MIN_VALUE) >>> shift) & MASK]++] = v;
+                }
+            } else {
+                for (int i = 0; i < n; i++) {
+                    long v = src[i];
+                    int k = offset[(int) ((v ^ Long.MIN_VALUE) >>> shift) & MASK]++;
+                    dst[k] = v;
+                    dstP[k] = srcP[i];
+                }
+                int[] t = srcP;
+                srcP = dstP;
+                dstP = t;
+            }
+
+            long[] t = src;
+            src = dst;
+            dst = t;
+        }
+
+        if (src != keys) {
+            System.arraycopy(src, 0, keys, 0, n);
+            if (payload != null) System.arraycopy(srcP, 0, payload, 0, n);
+        }
+    }
+
+    /**
+     * NaN を後ろに集めてから、残りを DoubleOrder.sortableBits の桁で並べる（-0.0 も 0.0 の前に来る）
+     * 値はそのまま動かすので、バッファは double[] 1つだけ
+     */
+    @Override
+    public void sort(double[] arr) {
+        int n = DoubleOrder.moveNaNsToEnd(arr);
+        if (n <= 1) return;
+        if (n <= INSERTION_THRESHOLD) {
+            insertionSort(arr, n);
+            return;
+        }
+
+        int[][] counts = new int[LONG_PASSES][RADIX];
+        for (int i = 0; i < n; i++) {
+            long u = DoubleOrder.sortableBits(arr[i]) ^ Long.MIN_VALUE;
+            for (int pass = 0; pass < LONG_PASSES; pass++) {
+                counts[pass][(int) (u >>> (pass * BITS)) & MASK]++;
+            }
+        }
+
+        double[] src = arr;
+        double[] dst = null;
+        for (int pass = 0; pass < LONG_PASSES; pass++) {
+            int[] count = counts[pass];
+            if (isSkippable(count, n)) continue;
+
+            if (dst == null) dst = new double[n];
+            int shift = pass * BITS;
+            int[] offset = prefixSums(count);
+            for (int i = 0; i < n; i++) {
+                double v = src[i];
+                long u = DoubleOrder.sortableBits(v) ^ Long.MIN_VALUE;
+                dst[offset[(int) (u >>> shift) & MASK]++] = v;
+            }
+
+            double[] t = src;
+            src = dst;
+            dst = t;
+        }
+
+        if (src != arr) System.arraycopy(src, 0, arr, 0, n);
+    }
+
+    // 同じキーは追い越さないので安定（payload は null でもよい）
+    private static void insertionSort(long[] a, int[] payload, int n) {
+        for (int i = 1; i < n; i++) {
+            long v = a[i];
+            int p = payload == null ? 0 : payload[i];
+            int j = i - 1;
+            while (j >= 0 && a[j] > v) {
+                a[j + 1] = a[j];
+                if (payload != null) payload[j + 1] = payload[j];
+                j--;
+            }
+            a[j + 1] = v;
+            if (payload != null) payload[j + 1] = p;
+        }
+    }
+
+    // a[0, n) に NaN はない。sortableBits で比べるので -0.0 も 0.0 の前に来る
+    private static void insertionSort(double[] a, int n) {
+        for (int i = 1; i < n; i++) {
+            double v = a[i];
+            long key = DoubleOrder.sortableBits(v);
+            int j = i - 1;
+            while (j >= 0 && DoubleOrder.sortableBits(a[j]) > key) {
+                a[j + 1] = a[j];
+                j--;
+            }
+            a[j + 1] = v;
+        }
+    }
+
+    // ---------------- GUI用 ----------------
+
+    @Override
+    public StepCursor cursor(int[] input) {
+        return SortEvents.steps(this, input).cursor();
+    }
+
+    /**
+     * sort と同じ手順を記録する（小さい配列でも挿入ソートにはせず、必ず桁ごとに分ける）
+     * - 最初に read(i) で全要素を読んでヒストグラムを作る
+     * - パスごとに range(0, n-1) を出し、write(k, v) でバケツの位置へ書き込んでいく
+     *   （表示上は出力バッファの中身で配列を上書きしていく）
+     */
+    @Override
+    public void record(int[] input, StepSink steps) {
+        int[] arr = input.clone();
+        int n = arr.length;
+        if (n <= 1) return;
+
+        steps.range(0, n - 1);
+        for (int i = 0; i < n; i++) steps.read(i);
+        int[][] counts = histograms(arr);
+
+        int[] src = arr;
+        int[] dst = new int[n];
+        for (int pass = 0; pass < PASSES; pass++) {
+            int[] count = counts[pass];
+            if (isSkippable(count, n)) continue;
+
+            steps.range(0, n - 1);
+            int shift = pass * BITS;
+            int[] offset = prefixSums(count);
+            for (int i = 0; i < n; i++) {
+                int v = src[i];
+                int k = offset[digit(v, shift)]++;
+                dst[k] = v;
+                steps.write(k, v);
+            }
+
+            int[] t = src;
+            src = dst;
+            dst = t;
+        }
+
+        steps.range(-1, -1);
+        steps.compare(-1, -1);
+    }
+}
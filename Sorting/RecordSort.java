@@ -0,0 +1,157 @@
+import java.lang.reflect.Array;
+
+/**
+ * キーで「レコード」を並べる（struct-of-arrays: キーの配列1本と、同じ長さの中身（payload）の配列を何本か）
+ * - レコードを1つずつオブジェクトにせず、配列のまま並べる（キャッシュに乗りやすく、箱もいらない）
+ * - どれも安定（同じキーのレコードは元の順番のまま）
+ * - まず argsort で並べた順の添字（順列）を決め、キーと payload をその順に並べ替える
+ *   argsort だけ使えば、元のデータは動かさずに順番だけ分かる
+ *
+ * argsort の中身
+ * - int キー  : (key << 32 | 添字) の long に詰めて RadixSort の long[] 版で並べる
+ *               添字で同じキーの順番が決まるので、詰めた値は全部違い、並べるだけで安定になる
+ * - long / double キー: RadixSort の long[] 版に添字を payload として渡し、キーと一緒に動かす
+ *               LSD は1パスごとに安定なので、全体も安定。double は DoubleOrder.sortableBits の順（NaN は最後）
+ * - 比較関数（複数のキーで並べたいときなど）: MergeSort.sortIndices で添字の配列を merge sort する
+ */
+public final class RecordSort {
+
+    /**
+     * argsort(n, cmp) 用。添字 i, j のレコードを比べる（Comparator と同じ符号）
+     */
+    @FunctionalInterface
+    public interface IndexComparator {
+        int compare(int i, int j);
+    }
+
+    private RecordSort() {}
+
+    // ---------------- 並べ替え（キーと payload を一緒に動かす） ----------------
+
+    /**
+     * keys の順に keys と payloads を並べ替える（安定）
+     * @param payloads keys と同じ長さの配列（int[], long[], double[], Object[] など。型は混ぜてよい）
+     */
+    public static void sort(int[] keys, Object... payloads) {
+        permuteWithKeys(argsort(keys), keys, payloads);
+    }
+
+    public static void sort(long[] keys, Object... payloads) {
+        permuteWithKeys(argsort(keys), keys, payloads);
+    }
+
+    /**
+     * 順序は Arrays.sort(double[]) と同じ（-0.0 は 0.0 の前、NaN は最後で、NaN どうしは元の順）
+     */
+    public static void sort(double[] keys, Object... payloads) {
+        permuteWithKeys(argsort(keys), keys, payloads);
+    }
+
+    /**
+     * arrays をそれぞれ order の順に並べ替える: 後の a[i] = 前の a[order[i]]
+     * 同じ型の配列には作業用の配列を1つだけ使い回す
+     */
+    public static void permute(int[] order, Object... arrays) {
+        int n = order.length;
+        for (Object a : arrays) {
+            if (a == null || !a.getClass().isArray()) throw new IllegalArgumentException("payload must be an array: " + a);
+            if (Array.getLength(a) != n) {
+                throw new IllegalArgumentException("payload length " + Array.getLength(a) + " != key length " + n);
+            }
+        }
+
+        int[] ints = null;
+        long[] longs = null;
+        double[] doubles = null;
+        Object[] objects = null;
+        for (Object a : arrays) {
+            if (a instanceof int[] x) {
+                if (ints == null) ints = new int[n];
+                System.arraycopy(x, 0, ints, 0, n);
+                for (int i = 0; i < n; i++) x[i] = ints[order[i]];
+            } else if (a instanceof long[] x) {
+                if (longs == null) longs = new long[n];
+                System.arraycopy(x, 0, longs, 0, n);
+                for (int i = 0; i < n; i++) x[i] = longs[order[i]];
+            } else if (a instanceof double[] x) {
+                if (doubles == null) doubles = new double[n];
+                System.arraycopy(x, 0, doubles, 0, n);
+                for (int i = 0; i < n; i++) x[i] = doubles[order[i]];
+            } else if (a instanceof Object[] x) {
+                if (objects == null) objects = new Object[n];
+                System.arraycopy(x, 0, objects, 0, n);
+                for (int i = 0; i < n; i++) x[i] = objects[order[i]];
+            } else {
+                // float[], byte[] など（あまり使わない型は汎用の方法で）
+                Object copy = Array.newInstance(a.getClass().getComponentType(), n);
+                System.arraycopy(a, 0, copy, 0, n);
+                for (int i = 0; i < n; i++) Array.set(a, i, Array.get(copy, order[i]));
+            }
+        }
+        if (objects != null) java.util.Arrays.fill(objects, null);   // 参照を残さない
+    }
+
+    private static void permuteWithKeys(int[] order, Object keys, Object[] payloads) {
+        Object[] all = new Object[payloads.length + 1];
+        all[0] = keys;
+        System.arraycopy(payloads, 0, all, 1, payloads.length);
+        permute(order, all);
+    }
+
+    // ---------------- argsort（データは動かさない） ----------------
+
+    /**
+     * @return order: keys[order[0]] <= keys[order[1]] <= ...（同じキーは添字の小さい順）
+     */
+    public static int[] argsort(int[] keys) {
+        int n = keys.length;
+        long[] packed = new long[n];
+        for (int i = 0; i < n; i++) packed[i] = ((long) keys[i] << 32) | i;
+        new RadixSort().sort(packed);
+
+        int[] order = new int[n];
+        for (int i = 0; i < n; i++) order[i] = (int) packed[i];
+        return order;
+    }
+
+    public static int[] argsort(long[] keys) {
+        return radixArgsort(keys.clone());
+    }
+
+    /**
+     * Double.compare の順。NaN は符号に関係なく最後（元の順のまま）
+     */
+    public static int[] argsort(double[] keys) {
+        long nan = DoubleOrder.sortableBits(Double.NaN);
+        long[] bits = new long[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            double v = keys[i];
+            bits[i] = v != v ? nan : DoubleOrder.sortableBits(v);
+        }
+        return radixArgsort(bits);
+    }
+
+    /**
+     * 比較関数で並べる（安定）。n 個のレコードを cmp の順に並べたときの添字の順
+     * 並べるのは MergeSort.sortIndices（MergeSort と同じボトムアップ merge sort）
+     */
+    public static int[] argsort(int n, IndexComparator cmp) {
+        if (n < 0) throw new IllegalArgumentException("n must be non-negative");
+        int[] order = identity(n);
+        MergeSort.sortIndices(order, cmp);
+        return order;
+    }
+
+    // keys（符号付き long として比べる。呼び出し側のコピーなので壊してよい）を RadixSort で並べ、添字も一緒に動かす
+    private static int[] radixArgsort(long[] keys) {
+        int[] order = identity(keys.length);
+        RadixSort.sort(keys, order);
+        return order;
+    }
+
+    private static int[] identity(int n) {
+        int[] order = new int[n];
+        for (int i = 0; i < n; i++) order[i] = i;
+        return order;
+    }
+}
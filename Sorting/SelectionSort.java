@@ -1,10 +1,7 @@
-import java.util.ArrayList;
-import java.util.List;
-
 /**
  * Selection Sort
  * - sort(int[]) : テスト用（SortTestEngineが呼ぶ）
- * - steps(int[]) : GUIの「Step」で使う（途中経過を返す）
+ * - cursor(int[]) : GUIの再生で使う（途中経過を必要な分だけ少しずつ作って流す）
  */
 public class SelectionSort implements StepSortable, Sorter {
 
@@ -18,7 +15,13 @@ public class SelectionSort implements StepSortable, Sorter {
      */
     @Override
     public void sort(int[] arr) {
+        sort(arr, OpCounter.NONE);
+    }
+
+    @Override
+    public void sort(int[] arr, OpCounter counter) {
         int n = arr.length;
+        long swaps = 0;
 
         for (int i = 0; i < n - 1; i++) {
             int minIndex = i;
@@ -33,64 +36,111 @@ public class SelectionSort implements StepSortable, Sorter {
             int tmp = arr[minIndex];
             arr[minIndex] = arr[i];
             arr[i] = tmp;
+            if (minIndex != i) swaps++;
         }
+        // 比較は入力によらず n(n-1)/2 回
+        counter.compares((long) n * (n - 1) / 2);
+        counter.swaps(swaps);
     }
 
     /**
-     * 途中経過（ステップ）を返す（GUI用）
-     * - data: その時点の配列スナップショット
-     * - compareA/compareB: 比較中のインデックス（強調表示用）
-     * - rangeL/rangeR: 「いま注目している範囲」（ここでは i..n-1 を渡す）
+     * 途中経過（ステップ）を1つずつ作るカーソルを返す（GUI用）
+     * - compare(a, b): 比較中のインデックス（強調表示用）
+     * - range(l, r): 「いま注目している範囲」（ここでは i..n-1）
+     * - swap(a, b): 入れ替え（配列のコピーは持たず、操作だけ流す）
      */
     @Override
-    public List<SortStep> steps(int[] input) {
-        int[] arr = input.clone();                // 入力を壊さないためにコピー
-        List<SortStep> steps = new ArrayList<>();
-
-        int n = arr.length;
-        if (n <= 1) return steps;
-
-        for (int i = 0; i < n - 1; i++) {
-            int minIndex = i;
+    public StepCursor cursor(int[] input) {
+        return new Cursor(input.clone());        // 入力を壊さないためにコピー
+    }
 
-            // 「この周回での開始」を記録（compareは i と minIndex）
-            record(steps, arr, i, minIndex, i, n - 1);
+    /**
+     * 二重ループを状態（i, j, minIndex, phase）で表したもの
+     * next() 1回で必ず1ステップだけ出す
+     */
+    private static final class Cursor implements StepCursor {
+        private static final int RANGE = 0;          // 「この周回での開始」（範囲 i..n-1）
+        private static final int START_COMPARE = 1;  // compareは i と minIndex
+        private static final int SCAN = 2;           // j と minIndex を比較
+        private static final int UPDATED = 3;        // 最小候補が更新された瞬間
+        private static final int SWAP = 4;           // i と minIndex を入れ替え（両方が強調される）
+        private static final int FINAL_RANGE = 5;    // 最後に「完成状態」
+        private static final int FINAL_CLEAR = 6;
+        private static final int DONE = 7;
+
+        private final int[] arr;
+        private final int n;
+        private int i = 0;
+        private int j = 0;
+        private int minIndex = 0;
+        private int phase;
+
+        Cursor(int[] arr) {
+            this.arr = arr;
+            this.n = arr.length;
+            this.phase = (n <= 1) ? DONE : RANGE;
+        }
 
-            for (int j = i + 1; j < n; j++) {
-                // いま比較しているのは j と minIndex
-                record(steps, arr, j, minIndex, i, n - 1);
+        @Override
+        public boolean hasNext() {
+            return phase != DONE;
+        }
 
-                if (arr[j] < arr[minIndex]) {
-                    minIndex = j;
-                    // 最小候補が更新された瞬間も記録（見た目わかりやすい）
-                    record(steps, arr, j, minIndex, i, n - 1);
+        @Override
+        public void next(StepSink sink) {
+            switch (phase) {
+                case RANGE -> {
+                    minIndex = i;
+                    sink.range(i, n - 1);
+                    phase = START_COMPARE;
+                }
+                case START_COMPARE -> {
+                    sink.compare(i, minIndex);
+                    j = i + 1;
+                    phase = SCAN;
                 }
+                case SCAN -> {
+                    sink.compare(j, minIndex);
+                    if (arr[j] < arr[minIndex]) {
+                        minIndex = j;
+                        phase = UPDATED;
+                    } else {
+                        nextJ();
+                    }
+                }
+                case UPDATED -> {
+                    sink.compare(j, minIndex);
+                    nextJ();
+                }
+                case SWAP -> {
+                    int tmp = arr[minIndex];
+                    arr[minIndex] = arr[i];
+                    arr[i] = tmp;
+                    sink.swap(i, minIndex);
+                    i++;
+                    phase = (i < n - 1) ? RANGE : FINAL_RANGE;
+                }
+                case FINAL_RANGE -> {
+                    sink.range(0, n - 1);
+                    phase = FINAL_CLEAR;
+                }
+                case FINAL_CLEAR -> {
+                    sink.compare(-1, -1);
+                    phase = DONE;
+                }
+                default -> throw new IllegalStateException("no more steps");
             }
-
-            // swap前も記録（i と minIndex を強調）
-            record(steps, arr, i, minIndex, i, n - 1);
-
-            // swap
-            int tmp = arr[minIndex];
-            arr[minIndex] = arr[i];
-            arr[i] = tmp;
-
-            // swap後も記録（どこが入れ替わったか見える）
-            record(steps, arr, i, minIndex, i, n - 1);
         }
 
-        // 最後に「完成状態」をもう1回入れておく（止まったとき気持ちいい）
-        record(steps, arr, -1, -1, 0, n - 1);
-
-        return steps;
-    }
+        private void nextJ() {
+            j++;
+            phase = (j < n) ? SCAN : SWAP;
+        }
 
-    /**
-     * steps に 1 ステップ追加する共通処理
-     */
-    private static void record(List<SortStep> steps, int[] arr,
-                               int compareA, int compareB,
-                               int rangeL, int rangeR) {
-        steps.add(new SortStep(arr.clone(), compareA, compareB, rangeL, rangeR));
+        @Override
+        public long estimatedSteps() {
+            // 比較 n(n-1)/2 回 + 周回ごとに 3 ステップ（最小候補の更新回数は数えない）
+            return (long) n * (n - 1) / 2 + 3L * (n - 1) + 2;
+        }
     }
 }
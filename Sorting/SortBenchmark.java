@@ -0,0 +1,405 @@
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+
+/**
+ * Sorter のベンチマーク（SortTestEngine は正しさの確認用、こちらは速さの計測用）
+ * - JIT が効いた状態で測るため、(sorter, pattern, size) ごとに測定の前にウォームアップを回す
+ * - 1回の測定は SAMPLE_NS くらいになるように短いソートをまとめて回し、1回のソートあたりの時間を標本にする
+ *   seed ごとに reps 回測り、全 seed の標本から中央値と p99 を出す
+ * - 回数（compares など）は seed ごとに1回だけ数えて平均する（数えるぶん遅くなるので時間の測定とは別）
+ * - 小さい配列はまとめて（バッチで）用意して、コピーの時間は測定に含めない
+ * - O(n^2) のソートは QUADRATIC_MAX_SIZE より大きいサイズを飛ばす
+ * - 並列ソートはベンチマーク専用のプールで動かし、割り当てたメモリ（alloc）はそのワーカーの分も足す
+ *
+ * 使い方: java SortBenchmark [--sorters=A,B] [--patterns=P,Q] [--sizes=N,M] [--seeds=S,T] [--reps=N]
+ *                            [--threads=N] [--csv=FILE] [--json=FILE]
+ * - --sorters は name() かクラス名（大文字小文字・記号は無視）。省略するとすべて
+ * - --threads は並列ソートの並列度（省略すると CPU 数）
+ * - --csv / --json は algorithm × pattern × size の表を書き出す（"-" なら標準出力。そのときの見出しや表は標準エラーへ）
+ */
+public class SortBenchmark {
+
+    private static final int[] SIZES = {10, 100, 1_000, 10_000, 100_000, 1_000_000, 10_000_000};
+    private static final int QUADRATIC_MAX_SIZE = 10_000;
+
+    private static final long SEED = 42;
+    private static final int DEFAULT_REPS = 10;
+    private static final int WARMUP_MIN_SORTS = 5;
+    private static final long WARMUP_NS = 500_000_000L;      // 500ms
+    private static final long SAMPLE_NS = 5_000_000L;        // 1回の測定がこれくらいになるようにまとめる
+    private static final int BATCH_ELEMENTS = 1 << 20;       // 1バッチで用意する要素数の上限
+
+    private record Candidate(Sorter sorter, int maxSize) {}
+
+    /**
+     * 1つの (sorter, pattern, size) の結果。時間は1回のソートあたりの ns、回数は seed ごとの平均
+     */
+    private record Cell(String sorter, DataGenerator.Pattern pattern, int size, int seeds, long[] samples,
+                        double compares, double swaps, double reads, double writes, double allocBytesPerOp) {
+        double medianNs() {
+            return PerfBaseline.median(samples);
+        }
+
+        double p99Ns() {
+            return PerfBaseline.percentile(samples, 0.99);
+        }
+
+        double meanNs() {
+            return Arrays.stream(samples).average().orElse(Double.NaN);
+        }
+    }
+
+    // 比較の基準（java.util.Arrays.sort）
+    private static final Sorter JDK_SORT = new Sorter() {
+        @Override
+        public String name() {
+            return "Arrays.sort";
+        }
+
+        @Override
+        public void sort(int[] arr) {
+            java.util.Arrays.sort(arr);
+        }
+    };
+
+    private static final com.sun.management.ThreadMXBean THREADS = threadBean();
+
+    // ベンチマーク用プールのワーカー（割り当てバイト数を足すため）
+    private static final Set<Thread> WORKERS = ConcurrentHashMap.newKeySet();
+
+    // 結果を捨てられないようにするための受け皿
+    private static volatile int blackhole;
+
+    public static void main(String[] args) throws IOException {
+        List<Candidate> candidates = List.of(
+                new Candidate(new MergeSort(), Integer.MAX_VALUE),
+                new Candidate(new BubbleSort(), QUADRATIC_MAX_SIZE),
+                new Candidate(new SelectionSort(), QUADRATIC_MAX_SIZE),
+                new Candidate(new ParallelMergeSort(), Integer.MAX_VALUE),
+                new Candidate(new IntroSort(), Integer.MAX_VALUE),
+                new Candidate(new RadixSort(), Integer.MAX_VALUE),
+                new Candidate(new AmericanFlagSort(), Integer.MAX_VALUE),
+                new Candidate(new TimSort(), Integer.MAX_VALUE),
+                new Candidate(new CountingSort(), Integer.MAX_VALUE),
+                new Candidate(new ParallelSampleSort(), Integer.MAX_VALUE),
+                new Candidate(JDK_SORT, Integer.MAX_VALUE)
+        );
+
+        List<Candidate> selected = candidates;
+        List<DataGenerator.Pattern> patterns = List.of(DataGenerator.Pattern.values());
+        int[] sizes = SIZES;
+        long[] seeds = {SEED};
+        int reps = DEFAULT_REPS;
+        int threads = 0;            // 0 = CPU 数
+        String csvFile = null;
+        String jsonFile = null;
+        for (String arg : args) {
+            if (arg.startsWith("--sorters=")) {
+                selected = selectSorters(candidates, arg.substring("--sorters=".length()));
+            } else if (arg.startsWith("--patterns=")) {
+                patterns = Arrays.stream(splitList(arg.substring("--patterns=".length())))
+                        .map(p -> DataGenerator.Pattern.valueOf(p.toUpperCase(Locale.ROOT)))
+                        .toList();
+            } else if (arg.startsWith("--sizes=")) {
+                sizes = Arrays.stream(splitList(arg.substring("--sizes=".length()))).mapToInt(Integer::parseInt).toArray();
+            } else if (arg.startsWith("--seeds=")) {
+                seeds = Arrays.stream(splitList(arg.substring("--seeds=".length()))).mapToLong(Long::parseLong).toArray();
+            } else if (arg.startsWith("--reps=")) {
+                reps = Integer.parseInt(arg.substring("--reps=".length()));
+            } else if (arg.startsWith("--threads=")) {
+                threads = Integer.parseInt(arg.substring("--threads=".length()));
+            } else if (arg.startsWith("--csv=")) {
+                csvFile = arg.substring("--csv=".length());
+            } else if (arg.startsWith("--json=")) {
+                jsonFile = arg.substring("--json=".length());
+            } else {
+                throw new IllegalArgumentException("unknown argument: " + arg);
+            }
+        }
+        if (reps < 1) throw new IllegalArgumentException("--reps must be >= 1");
+        if (seeds.length == 0) throw new IllegalArgumentException("--seeds is empty");
+
+        // 機械向けの出力を標準出力に出すときは、人向けの表は標準エラーへ
+        PrintStream log = "-".equals(csvFile) || "-".equals(jsonFile) ? System.err : System.out;
+
+        ForkJoinPool pool = new ForkJoinPool(threads > 0 ? threads : Runtime.getRuntime().availableProcessors(), p -> {
+            ForkJoinWorkerThread t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+            WORKERS.add(t);
+            return t;
+        }, null, false);
+        DataGenerator generator = new DataGenerator();
+        List<Cell> cells = new ArrayList<>();
+
+        log.printf("warmup>=%dms, reps=%d x ~%dms per seed, seeds=%s, threads=%d%n",
+                WARMUP_NS / 1_000_000, reps, SAMPLE_NS / 1_000_000, Arrays.toString(seeds), pool.getParallelism());
+        log.printf("%-26s %-15s %9s %14s %14s %14s %14s%n",
+                "sorter", "pattern", "size", "median(us/op)", "p99(us/op)", "compares/op", "alloc(B/op)");
+
+        for (Candidate c : selected) {
+            Sorter sorter = c.sorter().onPool(pool);
+            for (DataGenerator.Pattern pattern : patterns) {
+                for (int size : sizes) {
+                    if (size > c.maxSize()) continue;
+
+                    if (sorter instanceof ParallelSampleSort pss) pss.resetPhaseTimings();
+                    Cell cell = measure(sorter, generator, pattern, size, seeds, reps);
+                    cells.add(cell);
+
+                    log.printf("%-26s %-15s %9d %14.3f %14.3f %14.1f %14.1f%n",
+                            cell.sorter(), pattern, size,
+                            cell.medianNs() / 1_000.0, cell.p99Ns() / 1_000.0,
+                            cell.compares(), cell.allocBytesPerOp());
+                    if (sorter instanceof ParallelSampleSort pss && pss.parallelRuns() > 0) {
+                        log.println("    phases: " + pss.phaseReport());
+                    }
+                }
+            }
+        }
+        pool.shutdown();
+
+        if (csvFile != null) write(csvFile, w -> writeCsv(w, cells));
+        if (jsonFile != null) {
+            int parallelism = pool.getParallelism();
+            int repsPerSeed = reps;
+            long[] seedList = seeds;
+            write(jsonFile, w -> writeJson(w, cells, seedList, repsPerSeed, parallelism));
+        }
+    }
+
+    private static String[] splitList(String s) {
+        return Arrays.stream(s.split(",")).map(String::trim).filter(x -> !x.isEmpty()).toArray(String[]::new);
+    }
+
+    private static List<Candidate> selectSorters(List<Candidate> candidates, String list) {
+        List<Candidate> selected = new ArrayList<>();
+        for (String wanted : splitList(list)) {
+            String key = normalize(wanted);
+            Candidate match = candidates.stream()
+                    .filter(c -> normalize(c.sorter().name()).equals(key)
+                            || normalize(c.sorter().getClass().getSimpleName()).equals(key))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException("unknown sorter: " + wanted));
+            selected.add(match);
+        }
+        return selected;
+    }
+
+    // "Intro Sort" / "IntroSort" / "intro-sort" を同じものとして扱う
+    private static String normalize(String s) {
+        return s.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]", "");
+    }
+
+    // ---------------- 測定 ----------------
+
+    private static Cell measure(Sorter sorter, DataGenerator generator, DataGenerator.Pattern pattern, int size,
+                                long[] seeds, int reps) {
+        long[] samples = new long[seeds.length * reps];
+        OpCounts ops = new OpCounts();
+        long sorts = 0, bytes = 0;
+        int[][] work = null;
+
+        for (int s = 0; s < seeds.length; s++) {
+            int[] source = generator.generate(pattern, size, seeds[s]);
+
+            // 回数（時間の測定とは別に1回だけ。JFR のイベントもこの1回で出す）
+            int[] counted = source.clone();
+            SortEvents.sort(sorter, counted, pattern.name(), ops);
+
+            if (work == null) work = new int[batchSize(warmUp(sorter, source), size)][size];
+
+            for (int r = 0; r < reps; r++) {
+                for (int[] w : work) System.arraycopy(source, 0, w, 0, size);
+
+                Map<Long, Long> w0 = workerAllocatedBytes();
+                long a0 = allocatedBytes();
+                long t0 = System.nanoTime();
+                for (int[] w : work) sorter.sort(w);
+                long t1 = System.nanoTime();
+                long a1 = allocatedBytes();
+
+                samples[s * reps + r] = (t1 - t0) / work.length;
+                bytes += a1 - a0 + workerAllocatedSince(w0);
+                sorts += work.length;
+
+                int h = 0;
+                for (int[] w : work) if (w.length > 0) h += w[w.length - 1];
+                blackhole = h;
+            }
+        }
+
+        double allocPerOp = THREADS == null ? Double.NaN : bytes / (double) sorts;
+        // 2要素以上を並べて何も数えていなければ、数えられないソート（Arrays.sort など）。0 ではなく空欄にする
+        boolean counted = size < 2 || ops.compares + ops.swaps + ops.reads + ops.writes > 0;
+        double n = counted ? seeds.length : Double.NaN;
+        return new Cell(sorter.name(), pattern, size, seeds.length, samples,
+                ops.compares / n, ops.swaps / n, ops.reads / n, ops.writes / n, allocPerOp);
+    }
+
+    /**
+     * WARMUP_NS 以上（かつ WARMUP_MIN_SORTS 回以上）ソートを繰り返す
+     * @return 最後の1回の時間（ns）
+     */
+    private static long warmUp(Sorter sorter, int[] source) {
+        int[] w = new int[source.length];
+        long start = System.nanoTime();
+        long last = 0;
+        for (int i = 0; i < WARMUP_MIN_SORTS || System.nanoTime() - start < WARMUP_NS; i++) {
+            System.arraycopy(source, 0, w, 0, source.length);
+            long t0 = System.nanoTime();
+            sorter.sort(w);
+            last = System.nanoTime() - t0;
+        }
+        blackhole = w.length > 0 ? w[0] : 0;
+        return last;
+    }
+
+    // 1回の測定が SAMPLE_NS くらいになる個数（用意する要素数は BATCH_ELEMENTS まで）
+    private static int batchSize(long perSortNs, int size) {
+        long byTime = SAMPLE_NS / Math.max(1, perSortNs);
+        int byMemory = Math.max(1, BATCH_ELEMENTS / Math.max(1, size));
+        return (int) Math.max(1, Math.min(byTime, byMemory));
+    }
+
+    private static long allocatedBytes() {
+        return THREADS == null ? 0 : THREADS.getCurrentThreadAllocatedBytes();
+    }
+
+    // プールのワーカーの割り当てバイト数（スレッド ID → bytes）
+    // 測定するスレッドの分（allocatedBytes）より先に読み、後で読むので、この Map 自体は数えない
+    private static Map<Long, Long> workerAllocatedBytes() {
+        Map<Long, Long> bytes = new HashMap<>();
+        if (THREADS == null) return bytes;
+        for (Thread t : WORKERS) {
+            long b = THREADS.getThreadAllocatedBytes(t.getId());
+            if (b >= 0) bytes.put(t.getId(), b);
+        }
+        return bytes;
+    }
+
+    // 途中で増えたワーカーは0から、途中で終わったワーカーは数えない
+    private static long workerAllocatedSince(Map<Long, Long> before) {
+        long sum = 0;
+        for (Map.Entry<Long, Long> e : workerAllocatedBytes().entrySet()) {
+            sum += e.getValue() - before.getOrDefault(e.getKey(), 0L);
+        }
+        return sum;
+    }
+
+    private static com.sun.management.ThreadMXBean threadBean() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean
+                && bean.isThreadAllocatedMemorySupported()) {
+            bean.setThreadAllocatedMemoryEnabled(true);
+            return bean;
+        }
+        return null;
+    }
+
+    // ---------------- 出力 ----------------
+
+    private interface Body {
+        void writeTo(PrintWriter w);
+    }
+
+    private static void write(String file, Body body) throws IOException {
+        if ("-".equals(file)) {
+            PrintWriter w = new PrintWriter(System.out);
+            body.writeTo(w);
+            w.flush();
+            return;
+        }
+        try (Writer out = Files.newBufferedWriter(Path.of(file)); PrintWriter w = new PrintWriter(out)) {
+            body.writeTo(w);
+        }
+    }
+
+    private static void writeCsv(PrintWriter w, List<Cell> cells) {
+        w.println("sorter,pattern,size,seeds,samples,median_ns,p99_ns,mean_ns,compares,swaps,reads,writes,alloc_bytes");
+        for (Cell c : cells) {
+            w.println(String.join(",",
+                    csvQuote(c.sorter()), c.pattern().name(), String.valueOf(c.size()),
+                    String.valueOf(c.seeds()), String.valueOf(c.samples().length),
+                    number(c.medianNs()), number(c.p99Ns()), number(c.meanNs()),
+                    number(c.compares()), number(c.swaps()), number(c.reads()), number(c.writes()),
+                    number(c.allocBytesPerOp())));
+        }
+    }
+
+    private static void writeJson(PrintWriter w, List<Cell> cells, long[] seeds, int reps, int threads) {
+        w.println("{");
+        w.println("  \"timestamp\": " + jsonString(Instant.now().toString()) + ",");
+        w.println("  \"java\": " + jsonString(System.getProperty("java.vm.name") + " " + System.getProperty("java.version")) + ",");
+        w.println("  \"os\": " + jsonString(System.getProperty("os.name") + " " + System.getProperty("os.arch")) + ",");
+        w.println("  \"cpus\": " + Runtime.getRuntime().availableProcessors() + ",");
+        w.println("  \"threads\": " + threads + ",");
+        w.println("  \"seeds\": " + Arrays.toString(seeds) + ",");
+        w.println("  \"reps\": " + reps + ",");
+        w.println("  \"unit\": \"ns per sort (time), per sort (counts, alloc)\",");
+        w.println("  \"results\": [");
+        for (int i = 0; i < cells.size(); i++) {
+            Cell c = cells.get(i);
+            w.print("    {\"sorter\": " + jsonString(c.sorter())
+                    + ", \"pattern\": " + jsonString(c.pattern().name())
+                    + ", \"size\": " + c.size()
+                    + ", \"samples\": " + c.samples().length
+                    + ", \"median_ns\": " + jsonNumber(c.medianNs())
+                    + ", \"p99_ns\": " + jsonNumber(c.p99Ns())
+                    + ", \"mean_ns\": " + jsonNumber(c.meanNs())
+                    + ", \"compares\": " + jsonNumber(c.compares())
+                    + ", \"swaps\": " + jsonNumber(c.swaps())
+                    + ", \"reads\": " + jsonNumber(c.reads())
+                    + ", \"writes\": " + jsonNumber(c.writes())
+                    + ", \"alloc_bytes\": " + jsonNumber(c.allocBytesPerOp()) + "}");
+            w.println(i + 1 < cells.size() ? "," : "");
+        }
+        w.println("  ]");
+        w.println("}");
+    }
+
+    // 測れなかった値（NaN）は空欄
+    private static String number(double v) {
+        if (Double.isNaN(v)) return "";
+        return v == Math.rint(v) ? String.valueOf((long) v) : String.format(Locale.ROOT, "%.1f", v);
+    }
+
+    private static String jsonNumber(double v) {
+        return Double.isNaN(v) ? "null" : number(v);
+    }
+
+    private static String csvQuote(String s) {
+        if (s.indexOf(',') < 0 && s.indexOf('"') < 0) return s;
+        return "\"" + s.replace("\"", "\"\"") + "\"";
+    }
+
+    private static String jsonString(String s) {
+        StringBuilder sb = new StringBuilder("\"");
+        for (char ch : s.toCharArray()) {
+            switch (ch) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (ch < 0x20) sb.append(String.format("\\u%04x", (int) ch));
+                    else sb.append(ch);
+                }
+            }
+        }
+        return sb.append('"').toString();
+    }
+}
@@ -0,0 +1,154 @@
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Java Flight Recorder のイベント（ソート1回・ステップの記録・GUI の1フレーム）
+ * - 記録していないときは isEnabled() が false になり、JIT でイベントの生成ごと消えるので、ほぼコストはない
+ * - 記録しているときだけ sort(arr, counter) で回数も数える
+ *
+ * 例: java -XX:StartFlightRecording=filename=sort.jfr,settings=profile -cp . SortTestEngine
+ *     jfr print --categories Sorting sort.jfr
+ */
+final class SortEvents {
+
+    private SortEvents() {}
+
+    @Name("sorting.Sort")
+    @Label("Sort")
+    @Category("Sorting")
+    @StackTrace(false)
+    static final class SortEvent extends Event {
+        @Label("Algorithm")
+        String algorithm;
+
+        @Label("Size")
+        int size;
+
+        @Label("Pattern")
+        String pattern;
+
+        @Label("Compares")
+        long compares;
+
+        @Label("Swaps")
+        long swaps;
+
+        @Label("Reads")
+        long reads;
+
+        @Label("Writes")
+        long writes;
+    }
+
+    @Name("sorting.StepGeneration")
+    @Label("Step Generation")
+    @Category("Sorting")
+    @StackTrace(false)
+    static final class StepGenerationEvent extends Event {
+        @Label("Algorithm")
+        String algorithm;
+
+        @Label("Size")
+        int size;
+
+        @Label("Steps")
+        int steps;
+
+        @Label("Keyframe Interval")
+        int keyframeInterval;
+    }
+
+    @Name("sorting.GuiTick")
+    @Label("GUI Tick")
+    @Category({"Sorting", "GUI"})
+    @StackTrace(false)
+    static final class GuiTickEvent extends Event {
+        @Label("Tick")
+        long tick;
+
+        @Label("Left Steps")
+        int leftSteps;
+
+        @Label("Right Steps")
+        int rightSteps;
+
+        @Label("Render Time")
+        @Timespan(Timespan.NANOSECONDS)
+        long renderNanos;
+    }
+
+    @Name("sorting.ChartPaint")
+    @Label("Chart Paint")
+    @Category({"Sorting", "GUI"})
+    @StackTrace(false)
+    static final class ChartPaintEvent extends Event {
+        @Label("Bars")
+        int bars;
+
+        @Label("Redrawn Bars")
+        int redrawnBars;
+
+        @Label("Width")
+        int width;
+
+        @Label("Height")
+        int height;
+    }
+
+    /**
+     * sorter.sort(arr) を1回呼ぶ。記録中なら SortEvent を出す
+     */
+    static void sort(Sorter sorter, int[] arr, String pattern) {
+        if (!new SortEvent().isEnabled()) {
+            sorter.sort(arr);
+            return;
+        }
+        sort(sorter, arr, pattern, new OpCounts());
+    }
+
+    /**
+     * sorter.sort(arr, ops) を1回呼ぶ（記録していなくても ops には数える）。記録中なら SortEvent を出す
+     * 回数を数える分だけ遅いので、時間を測るところでは使わない（ベンチマークは測定とは別の1回に使う）
+     */
+    static void sort(Sorter sorter, int[] arr, String pattern, OpCounts ops) {
+        SortEvent event = new SortEvent();
+        long compares = ops.compares, swaps = ops.swaps, reads = ops.reads, writes = ops.writes;
+        event.begin();
+        sorter.sort(arr, ops);
+        event.end();
+        if (event.shouldCommit()) {
+            event.algorithm = sorter.name();
+            event.size = arr.length;
+            event.pattern = pattern;
+            event.compares = ops.compares - compares;
+            event.swaps = ops.swaps - swaps;
+            event.reads = ops.reads - reads;
+            event.writes = ops.writes - writes;
+            event.commit();
+        }
+    }
+
+    /**
+     * sorter.steps(input) を呼ぶ。記録中なら StepGenerationEvent を出す
+     */
+    static StepTimeline steps(StepSortable sorter, int[] input) {
+        StepGenerationEvent event = new StepGenerationEvent();
+        if (!event.isEnabled()) return sorter.steps(input);
+
+        event.begin();
+        StepTimeline timeline = sorter.steps(input);
+        event.end();
+        if (event.shouldCommit()) {
+            event.algorithm = sorter.name();
+            event.size = input.length;
+            event.steps = timeline.size();
+            event.keyframeInterval = timeline.keyframeInterval();
+            event.commit();
+        }
+        return timeline;
+    }
+}
@@ -0,0 +1,310 @@
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 2つの Sorter を実際に走らせて速さを比べる（GUI の Race 用。画面の再生は見た目だけで、勝敗はこちらで決める）
+ * - 左右それぞれ専用のスレッドで、同じ入力のコピーを同時にソートする（毎回バリアで開始をそろえる）
+ * - 並列ソートは左右とも threadsPerSide 並列の専用 ForkJoinPool で動かす（Sorter.onPool）
+ * - ウォームアップで JIT を効かせてから MIN_TRIALS〜MAX_TRIALS 回測り、1回あたりの wall time と CPU time の中央値で比べる
+ * - 小さい配列は1回の測定で何個かまとめてソートし、nanoTime の粒度より十分長くする
+ * - CPU time は専用スレッドとそのプールのワーカーのスレッド CPU 時間の合計
+ * - O(n^2) のソートは QUADRATIC_MAX_SIZE より大きい配列では測らない（1回のソートが長すぎて、止めても残る）
+ */
+final class SortRace {
+
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int MIN_TRIALS = 3;
+    private static final int MAX_TRIALS = 9;
+    private static final long WARMUP_MIN_NS = 300_000_000L;        // ウォームアップは WARMUP_ROUNDS 回かつこの時間以上
+    private static final long WARMUP_BUDGET_NS = 1_000_000_000L;   // ただしここまで（最低1回）
+    private static final long TRIAL_BUDGET_NS = 5_000_000_000L;    // MIN_TRIALS 回を超えたらここで打ち切る
+    private static final long MIN_TRIAL_NS = 2_000_000L;           // 1回の測定はこれ以上の長さにまとめる
+    private static final int BATCH_ELEMENTS = 1 << 20;             // まとめてソートする要素数の上限
+    private static final double TIE_RATIO = 0.03;                  // 中央値の差がこれ未満なら同着
+    static final int QUADRATIC_MAX_SIZE = 10_000;                  // SortBenchmark と同じ上限
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    /**
+     * 片側の結果。時間はどれも「1回のソートあたり」
+     */
+    record Side(String name, long[] wallNs, long[] cpuNs, int batch, boolean sorted) {
+        long medianWallNs() {
+            return median(wallNs);
+        }
+
+        /** CPU 時間が測れない環境では -1 */
+        long medianCpuNs() {
+            return median(cpuNs);
+        }
+    }
+
+    record Result(Side left, Side right, int threadsPerSide, int warmups) {
+        int trials() {
+            return left.wallNs().length;
+        }
+
+        /**
+         * wall time の中央値が速いほうが勝ち。差が TIE_RATIO 未満なら CPU time の中央値で決め、それも近ければ引き分け
+         */
+        String winnerLine() {
+            if (!left.sorted() || !right.sorted()) {
+                return "Result: invalid (" + (left.sorted() ? right.name() : left.name()) + " did not sort)";
+            }
+            int byWall = compare(left.medianWallNs(), right.medianWallNs());
+            if (byWall != 0) return winner(byWall, "median wall time");
+            int byCpu = compare(left.medianCpuNs(), right.medianCpuNs());
+            if (byCpu != 0) return winner(byCpu, "median CPU time");
+            return "Result: Draw";
+        }
+
+        private String winner(int sign, String by) {
+            return sign < 0 ? ("Winner: " + left.name() + " (Left, " + by + ")")
+                    : ("Winner: " + right.name() + " (Right, " + by + ")");
+        }
+
+        private static int compare(long l, long r) {
+            if (l < 0 || r < 0) return 0;
+            if (Math.abs(l - r) < TIE_RATIO * Math.max(l, r)) return 0;
+            return Long.compare(l, r);
+        }
+    }
+
+    private final Sorter left;
+    private final Sorter right;
+    private final int[] input;
+    private final int threadsPerSide;
+    private volatile boolean cancelled = false;
+    private volatile Lane leftLane;
+    private volatile Lane rightLane;
+
+    SortRace(Sorter left, Sorter right, int[] input, int threadsPerSide) {
+        if (threadsPerSide < 1) throw new IllegalArgumentException("threadsPerSide must be >= 1");
+        for (Sorter s : new Sorter[] {left, right}) {
+            if (isTooSlow(s, input.length)) {
+                throw new IllegalArgumentException(s.name() + " is O(n^2): races are limited to n <= " + QUADRATIC_MAX_SIZE);
+            }
+        }
+        this.left = left;
+        this.right = right;
+        this.input = input.clone();
+        this.threadsPerSide = threadsPerSide;
+    }
+
+    /**
+     * 左右で CPU を分け合うので、既定は全体の半分ずつ
+     */
+    static int defaultThreadsPerSide() {
+        return Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    }
+
+    /**
+     * O(n^2) のソートで、n が大きすぎて測れないか
+     */
+    static boolean isTooSlow(Sorter sorter, int n) {
+        return (sorter instanceof BubbleSort || sorter instanceof SelectionSort) && n > QUADRATIC_MAX_SIZE;
+    }
+
+    /**
+     * 測定をやめる。左右のプールと専用スレッドはすぐに shutdownNow する
+     * ただしソートは割り込みを見ないので、専用スレッドで走っている1回のソートは最後まで終わる
+     * （長くかかる O(n^2) のソートは、コンストラクタで大きい配列を断っている）
+     */
+    void cancel() {
+        cancelled = true;
+        Lane l = leftLane, r = rightLane;
+        if (l != null) l.abort();
+        if (r != null) r.abort();
+    }
+
+    boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * @return 結果。cancel されたら null
+     */
+    Result run() throws InterruptedException {
+        Lane l = new Lane("race-left", left);
+        Lane r = new Lane("race-right", right);
+        leftLane = l;
+        rightLane = r;
+        try {
+            CyclicBarrier start = new CyclicBarrier(2);
+
+            // ウォームアップ（1回ごとに、その時間からまとめてソートする個数を決め直す）
+            int warmups = 0;
+            long warmupStart = System.nanoTime();
+            while (true) {
+                long elapsed = System.nanoTime() - warmupStart;
+                boolean enough = warmups >= WARMUP_ROUNDS && elapsed >= WARMUP_MIN_NS;
+                if (warmups > 0 && (enough || elapsed >= WARMUP_BUDGET_NS)) break;
+                if (cancelled) return null;
+                long[][] round = round(l, r, start);
+                l.calibrate(round[0][0]);
+                r.calibrate(round[1][0]);
+                warmups++;
+            }
+
+            long[] wallL = new long[MAX_TRIALS], cpuL = new long[MAX_TRIALS];
+            long[] wallR = new long[MAX_TRIALS], cpuR = new long[MAX_TRIALS];
+            int trials = 0;
+            long trialStart = System.nanoTime();
+            while (trials < MAX_TRIALS && (trials < MIN_TRIALS || System.nanoTime() - trialStart < TRIAL_BUDGET_NS)) {
+                if (cancelled) return null;
+                long[][] round = round(l, r, start);
+                wallL[trials] = round[0][0];
+                cpuL[trials] = round[0][1];
+                wallR[trials] = round[1][0];
+                cpuR[trials] = round[1][1];
+                trials++;
+            }
+
+            return new Result(
+                    new Side(left.name(), Arrays.copyOf(wallL, trials), Arrays.copyOf(cpuL, trials), l.batch, l.sorted),
+                    new Side(right.name(), Arrays.copyOf(wallR, trials), Arrays.copyOf(cpuR, trials), r.batch, r.sorted),
+                    threadsPerSide, warmups);
+        } catch (RuntimeException e) {
+            if (cancelled) return null;     // cancel で止めたプール・バリアからの例外
+            throw e;
+        } finally {
+            l.close();
+            r.close();
+        }
+    }
+
+    // 左右を同時に1回ずつ測る。@return {{wallL, cpuL}, {wallR, cpuR}}（1回のソートあたり）
+    private long[][] round(Lane l, Lane r, CyclicBarrier start) throws InterruptedException {
+        Future<long[]> fl = l.thread.submit(() -> l.trial(start));
+        Future<long[]> fr = r.thread.submit(() -> r.trial(start));
+        try {
+            return new long[][] {fl.get(), fr.get()};
+        } catch (ExecutionException e) {
+            fl.cancel(true);
+            fr.cancel(true);
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException re) throw re;
+            if (cause instanceof Error err) throw err;
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    /**
+     * 片側: 専用スレッド + 専用プール + 作業用配列
+     */
+    private final class Lane {
+        private final Set<Thread> workers = ConcurrentHashMap.newKeySet();
+        private final ForkJoinPool pool;
+        private final ExecutorService thread;
+        private final Sorter sorter;
+        private int[][] work = new int[1][];
+        private int batch = 1;
+        private boolean sorted = true;
+
+        Lane(String name, Sorter sorter) {
+            this.pool = new ForkJoinPool(threadsPerSide, p -> {
+                ForkJoinWorkerThread t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+                workers.add(t);
+                return t;
+            }, null, false);
+            this.thread = Executors.newSingleThreadExecutor(r -> {
+                Thread t = new Thread(r, name);
+                t.setDaemon(true);
+                return t;
+            });
+            this.sorter = sorter.onPool(pool);
+            this.work[0] = new int[input.length];
+        }
+
+        // 1回が MIN_TRIAL_NS 以上になるように、まとめてソートする個数を決める
+        void calibrate(long perSortNs) {
+            int byTime = (int) Math.min(Integer.MAX_VALUE, MIN_TRIAL_NS / Math.max(1, perSortNs) + 1);
+            int byMemory = Math.max(1, BATCH_ELEMENTS / Math.max(1, input.length));
+            int next = Math.max(1, Math.min(byTime, byMemory));
+            if (next != batch) {
+                batch = next;
+                work = new int[batch][input.length];
+            }
+        }
+
+        // @return {wallNs, cpuNs}（1回のソートあたり。CPU 時間が測れなければ -1）
+        long[] trial(CyclicBarrier start) throws InterruptedException, BrokenBarrierException {
+            for (int[] w : work) System.arraycopy(input, 0, w, 0, input.length);
+
+            start.await();
+            Map<Long, Long> cpu0 = cpuTimes();
+            long t0 = System.nanoTime();
+            for (int[] w : work) sorter.sort(w);
+            long t1 = System.nanoTime();
+            long cpu = cpuSince(cpu0);
+
+            for (int[] w : work) sorted &= isSorted(w);
+            return new long[] {(t1 - t0) / batch, cpu < 0 ? -1 : cpu / batch};
+        }
+
+        // このスレッドとプールのワーカーの CPU 時間（スレッド ID → ns）
+        private Map<Long, Long> cpuTimes() {
+            if (!THREADS.isThreadCpuTimeSupported() || !THREADS.isThreadCpuTimeEnabled()) return null;
+            Map<Long, Long> times = new HashMap<>();
+            times.put(Thread.currentThread().getId(), THREADS.getCurrentThreadCpuTime());
+            for (Thread t : workers) {
+                long ns = THREADS.getThreadCpuTime(t.getId());
+                if (ns >= 0) times.put(t.getId(), ns);
+            }
+            return times;
+        }
+
+        // 途中で増えたワーカーは0から、途中で終わったワーカーは数えない
+        private long cpuSince(Map<Long, Long> before) {
+            if (before == null) return -1;
+            Map<Long, Long> after = cpuTimes();
+            long sum = 0;
+            for (Map.Entry<Long, Long> e : after.entrySet()) {
+                sum += e.getValue() - before.getOrDefault(e.getKey(), 0L);
+            }
+            return sum;
+        }
+
+        // まだ始まっていない trial は cancel して、round の get() を待たせない
+        void abort() {
+            for (Runnable task : thread.shutdownNow()) {
+                if (task instanceof Future<?> f) f.cancel(false);
+            }
+            pool.shutdownNow();
+        }
+
+        void close() throws InterruptedException {
+            abort();
+            thread.awaitTermination(1, TimeUnit.SECONDS);
+        }
+    }
+
+    private static boolean isSorted(int[] a) {
+        for (int i = 1; i < a.length; i++) {
+            if (a[i - 1] > a[i]) return false;
+        }
+        return true;
+    }
+
+    private static long median(long[] values) {
+        if (values.length == 0) return -1;
+        long[] s = values.clone();
+        Arrays.sort(s);
+        int m = s.length / 2;
+        return s.length % 2 == 1 ? s[m] : (s[m - 1] + s[m]) / 2;
+    }
+}
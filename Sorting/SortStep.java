@@ -1,17 +1,45 @@
-import java.util.Arrays;
+/**
+ * 1ステップ分の「操作」だけを表す（配列全体のスナップショットは持たない）
+ * - COMPARE : a と b を比較中（強調表示）。a,b が -1 なら強調を消す
+ * - SWAP    : data[a] と data[b] を入れ替え
+ * - WRITE   : data[a] = b
+ * - READ    : data[a] を読むだけ（ヒストグラム作成など。強調表示のみ）
+ * - RANGE   : 注目範囲を a..b に変更（-1 なら範囲なし）
+ */
+public final class SortStep {
 
-public class SortStep {
-    public final int[] data;
-    public final int compareA;
-    public final int compareB;
-    public final int rangeL;
-    public final int rangeR;
+    public enum Kind {
+        COMPARE,
+        SWAP,
+        WRITE,
+        READ,
+        RANGE
+    }
+
+    public final Kind kind;
+    public final int a;
+    public final int b;
+
+    public SortStep(Kind kind, int a, int b) {
+        this.kind = kind;
+        this.a = a;
+        this.b = b;
+    }
+
+    /**
+     * この操作を sink に流す（StepState に流せば配列・強調表示が更新される）
+     */
+    public void applyTo(StepSink sink) {
+        apply(kind, a, b, sink);
+    }
 
-    public SortStep(int[] data, int compareA, int compareB, int rangeL, int rangeR) {
-        this.data = Arrays.copyOf(data, data.length);
-        this.compareA = compareA;
-        this.compareB = compareB;
-        this.rangeL = rangeL;
-        this.rangeR = rangeR;
+    static void apply(Kind kind, int a, int b, StepSink sink) {
+        switch (kind) {
+            case COMPARE -> sink.compare(a, b);
+            case SWAP -> sink.swap(a, b);
+            case WRITE -> sink.write(a, b);
+            case READ -> sink.read(a);
+            case RANGE -> sink.range(a, b);
+        }
     }
 }
@@ -1,60 +1,530 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+/**
+ * 使い方: java SortTestEngine [--threads=N] [--max-size=N] [file ...]
+ * - (sorter, ケース) の組はそれぞれ独立なので、スレッドプールで並列に確かめる（結果は決まった順に出す）
+ * - サイズは小さいもの（0〜200）に加えて 10^3〜10^7 まで。--max-size（既定 10^6）より大きいものは飛ばす
+ * - O(n^2) のソートは QUADRATIC_MAX_SIZE より大きいサイズを飛ばす
+ * - ファイルを渡すと、その中身（テキストまたは IntDataset）でも確かめる
+ *
+ * 性能の基準値: java SortTestEngine --baseline=FILE [--update-baseline] [--forks=N] [--max-size=N]
+ * - 10^3 以上のサイズ（既定は 10^5 まで）を1つずつ順番に、ウォームアップしてから BASELINE_REPS 周測る
+ *   sorter ごとに別の JVM を --forks 回（既定 3）起動して測る（JIT の状態を持ち込まない・JVM ごとの差も標本に入れる）
+ *   測定値は Arrays.sort のものさしで機械の速さをそろえてから比べる
+ * - FILE がなければ作る。あれば比べて、有意に遅くなった (sorter, pattern, size) を SLOWER と出す（終了コード 1）
+ * - --update-baseline を付けると、比べたあと今回の測定値で FILE を書き換える
+ */
 public class SortTestEngine {
 
-    private record TestCase(DataGenerator.Pattern pattern, int size, long seed) {}
+    private static final int[] SMALL_SIZES = {0, 1, 10, 50, 200};
+    private static final long[] SMALL_SEEDS = {0, 0, 1, 42, 99};
+    private static final int[] LARGE_SIZES = {1_000, 10_000, 100_000, 1_000_000, 10_000_000};
+    private static final int DEFAULT_MAX_SIZE = 1_000_000;
+    private static final int QUADRATIC_MAX_SIZE = 10_000;
+    private static final int PRINT_ARRAY_MAX = 200;             // 失敗したとき配列の中身を出すのはこの大きさまで
+
+    private static final int DEFAULT_BASELINE_MAX_SIZE = 100_000;
+    private static final int BASELINE_WARMUP = 5;
+    private static final long BASELINE_WARMUP_NS = 100_000_000L;  // JIT が落ち着くまで、回数に加えてこの時間は回す
+    private static final int DEFAULT_BASELINE_FORKS = 3;        // sorter ごとに起動する JVM の数（測定値はまとめて1つの標本にする）
+    private static final int BASELINE_REPS = 10;                // 1つの JVM での測定回数
+    private static final long BASELINE_SAMPLE_NS = 2_000_000L;   // 1回の測定がこれくらいになるように、短いソートはまとめて回す
+    private static final int BASELINE_MAX_BATCH = 1_000;
+
+    // 機械の速さのものさし（どの JVM でも sorter と交互に測り、その中央値で測定値を割りそろえる）
+    private static final Sorter REFERENCE_SORTER = new Sorter() {
+        @Override
+        public String name() {
+            return "Arrays.sort (reference)";
+        }
+
+        @Override
+        public void sort(int[] arr) {
+            Arrays.sort(arr);
+        }
+    };
+    private static final PerfBaseline.Key REFERENCE_KEY =
+            new PerfBaseline.Key(REFERENCE_SORTER.name(), DataGenerator.Pattern.RANDOM, 100_000);
+
+    // file があればその中身、なければ pattern/size/seed で生成する
+    private record TestCase(DataGenerator.Pattern pattern, int size, long seed, String file, int[] fileData) {
+        TestCase(DataGenerator.Pattern pattern, int size, long seed) {
+            this(pattern, size, seed, null, null);
+        }
+
+        String label() {
+            return file != null
+                    ? String.format("file=%-23s size=%8d", file, size)
+                    : String.format("pattern=%-14s size=%8d seed=%3d", pattern, size, seed);
+        }
+
+        int[] data(DataGenerator generator) {
+            return fileData != null ? fileData.clone() : generator.generate(pattern, size, seed);
+        }
+    }
+
+    private record Entry(Sorter sorter, int maxSize) {}
+
+    private static final List<LongSorter> LONG_SORTERS = List.of(new IntroSort(), new RadixSort());
+    private static final List<DoubleSorter> DOUBLE_SORTERS = List.of(new IntroSort(), new RadixSort());
+
+    private record Result(boolean ok, String report) {}
+
+    // size は実行順（大きいものから）を決めるため
+    private record Job(int size, Callable<Result> task) {}
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int threads = Runtime.getRuntime().availableProcessors();
+        Integer maxSizeArg = null;
+        String baselineFile = null;
+        boolean updateBaseline = false;
+        int forks = DEFAULT_BASELINE_FORKS;
+        int measureIndex = -1;          // 子プロセスとして1つの sorter だけ測るとき（runBaseline が付ける）
+        List<String> files = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.startsWith("--threads=")) {
+                threads = Integer.parseInt(arg.substring("--threads=".length()));
+            } else if (arg.startsWith("--max-size=")) {
+                maxSizeArg = Integer.parseInt(arg.substring("--max-size=".length()));
+            } else if (arg.startsWith("--baseline=")) {
+                baselineFile = arg.substring("--baseline=".length());
+            } else if (arg.equals("--update-baseline")) {
+                updateBaseline = true;
+            } else if (arg.startsWith("--forks=")) {
+                forks = Integer.parseInt(arg.substring("--forks=".length()));
+            } else if (arg.startsWith("--measure=")) {
+                measureIndex = Integer.parseInt(arg.substring("--measure=".length()));
+            } else {
+                files.add(arg);
+            }
+        }
+        int maxSize = maxSizeArg != null ? maxSizeArg
+                : baselineFile != null ? DEFAULT_BASELINE_MAX_SIZE : DEFAULT_MAX_SIZE;
 
-    public static void main(String[] args) {
         List<TestCase> cases = new ArrayList<>();
         for (DataGenerator.Pattern pattern : DataGenerator.Pattern.values()) {
-            cases.add(new TestCase(pattern, 0, 0));
-            cases.add(new TestCase(pattern, 1, 0));
-            cases.add(new TestCase(pattern, 10, 1));
-            cases.add(new TestCase(pattern, 50, 42));
-            cases.add(new TestCase(pattern, 200, 99));
+            for (int i = 0; i < SMALL_SIZES.length; i++) {
+                cases.add(new TestCase(pattern, SMALL_SIZES[i], SMALL_SEEDS[i]));
+            }
+            for (int size : LARGE_SIZES) {
+                if (size <= maxSize) cases.add(new TestCase(pattern, size, size));
+            }
+        }
+        for (String file : files) {
+            Path path = Path.of(file);
+            int[] data = IntDataset.isDataset(path) ? IntDataset.read(path) : IntParser.parse(path);
+            cases.add(new TestCase(null, data.length, 0, path.getFileName().toString(), data));
         }
 
-        List<Sorter> sorters = List.of(
-                new MergeSort(),
-                new BubbleSort(),
-                new SelectionSort()
+        List<Entry> sorters = List.of(
+                new Entry(new MergeSort(), Integer.MAX_VALUE),
+                new Entry(new BubbleSort(), QUADRATIC_MAX_SIZE),
+                new Entry(new SelectionSort(), QUADRATIC_MAX_SIZE),
+                new Entry(new ParallelMergeSort(), Integer.MAX_VALUE),
+                new Entry(new IntroSort(), Integer.MAX_VALUE),
+                new Entry(new RadixSort(), Integer.MAX_VALUE),
+                new Entry(new AmericanFlagSort(), Integer.MAX_VALUE),
+                new Entry(new TimSort(), Integer.MAX_VALUE),
+                new Entry(new CountingSort(), Integer.MAX_VALUE),
+                new Entry(new ParallelSampleSort(), Integer.MAX_VALUE)
         );
 
         DataGenerator generator = new DataGenerator();
 
-        boolean allPassed = true;
-        for (Sorter sorter : sorters) {
+        if (measureIndex >= 0) {
+            PerfBaseline.save(Path.of(baselineFile), measureSorter(sorters.get(measureIndex), maxSize, generator));
+            return;
+        }
+        if (baselineFile != null) {
+            int slower = runBaseline(Path.of(baselineFile), updateBaseline, forks, maxSize, sorters);
+            if (slower > 0) System.exit(1);
+            return;
+        }
+
+        // 報告は (sorter, ケース) の順、実行は大きいものから（最後に大きいのが1つだけ残らないように）
+        List<Job> jobs = new ArrayList<>();
+        for (Entry e : sorters) {
+            for (TestCase tc : cases) {
+                if (tc.size() <= e.maxSize()) jobs.add(new Job(tc.size(), () -> runCase(e.sorter(), tc, generator)));
+            }
+        }
+        // long[] / double[] 版は生成したケースだけ（ファイルは int なので使わない）
+        for (LongSorter sorter : LONG_SORTERS) {
             for (TestCase tc : cases) {
-                int[] data = generator.generate(tc.pattern, tc.size, tc.seed);
-                int[] original = Arrays.copyOf(data, data.length);
-                int[] expected = Arrays.copyOf(data, data.length);
-                Arrays.sort(expected);
+                if (tc.file() == null) jobs.add(new Job(tc.size(), () -> runLongCase(sorter, tc, generator)));
+            }
+        }
+        for (DoubleSorter sorter : DOUBLE_SORTERS) {
+            for (TestCase tc : cases) {
+                if (tc.file() == null) jobs.add(new Job(tc.size(), () -> runDoubleCase(sorter, tc, generator)));
+            }
+        }
+        for (TestCase tc : cases) {
+            if (tc.file() == null) jobs.add(new Job(tc.size(), () -> runRecordCase(tc, generator)));
+        }
+        // 大きいものから投入するが、結果は jobs の順に並べる
+        List<Future<Result>> results = new ArrayList<>(Collections.nCopies(jobs.size(), null));
+        Integer[] bySize = new Integer[jobs.size()];
+        for (int i = 0; i < bySize.length; i++) bySize[i] = i;
+        Arrays.sort(bySize, Comparator.comparingInt((Integer i) -> jobs.get(i).size()).reversed());
 
-                long start = System.nanoTime();
-                sorter.sort(data);
-                long elapsedMicros = (System.nanoTime() - start) / 1_000;
+        long t0 = System.nanoTime();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            for (int i : bySize) {
+                results.set(i, pool.submit(jobs.get(i).task()));
+            }
 
-                boolean ok = isSorted(data) && Arrays.equals(data, expected);
-                if (!ok) {
+            boolean allPassed = true;
+            int failed = 0;
+            for (Future<Result> f : results) {
+                Result r;
+                try {
+                    r = f.get();
+                } catch (ExecutionException e) {
+                    r = new Result(false, "[FAIL] " + e.getCause());
+                }
+                System.out.println(r.report());
+                if (!r.ok()) {
                     allPassed = false;
-                    System.out.printf("[FAIL] %-15s pattern=%-14s size=%4d seed=%3d elapsed=%6d µs%n",
-                            sorter.name(), tc.pattern(), tc.size(), tc.seed(), elapsedMicros);
-                    System.out.println("  input   : " + Arrays.toString(original));
-                    System.out.println("  expected: " + Arrays.toString(expected));
-                    System.out.println("  output  : " + Arrays.toString(data));
-                } else {
-                    System.out.printf("[PASS] %-15s pattern=%-14s size=%4d seed=%3d elapsed=%6d µs%n",
-                            sorter.name(), tc.pattern(), tc.size(), tc.seed(), elapsedMicros);
+                    failed++;
                 }
             }
+            long ms = (System.nanoTime() - t0) / 1_000_000;
+
+            System.out.printf("%d runs (%d sorters x %d cases + %d long[] / %d double[] sorters + Record Sort, max size %d) on %d threads in %d ms%n",
+                    results.size(), sorters.size(), cases.size(), LONG_SORTERS.size(), DOUBLE_SORTERS.size(), maxSize, threads, ms);
+            if (allPassed) {
+                System.out.println("All test cases passed.");
+            } else {
+                System.out.println(failed + " test case(s) failed. See logs above.");
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * 1つの (sorter, ケース) を確かめる
+     * 並んでいることと、要素の集まりが変わっていないこと（順序に依らない指紋）を O(n) で調べるので、
+     * 大きいケースでも期待値の配列は作らない
+     */
+    private static Result runCase(Sorter sorter, TestCase tc, DataGenerator generator) {
+        int[] data = tc.data(generator);
+        long before = fingerprint(data);
+
+        long start = System.nanoTime();
+        SortEvents.sort(sorter, data, tc.file() != null ? tc.file() : tc.pattern().name());
+        long elapsedMicros = (System.nanoTime() - start) / 1_000;
+
+        boolean ok = isSorted(data) && fingerprint(data) == before;
+        String line = String.format("[%s] %-15s %s elapsed=%9d µs", ok ? "PASS" : "FAIL", sorter.name(), tc.label(), elapsedMicros);
+        if (ok) return new Result(true, line);
+
+        StringBuilder sb = new StringBuilder(line);
+        int[] original = tc.data(generator);
+        int[] expected = original.clone();
+        Arrays.sort(expected);
+        if (data.length <= PRINT_ARRAY_MAX) {
+            sb.append("\n  input   : ").append(Arrays.toString(original));
+            sb.append("\n  expected: ").append(Arrays.toString(expected));
+            sb.append("\n  output  : ").append(Arrays.toString(data));
+        } else {
+            int i = Arrays.mismatch(data, expected);
+            sb.append("\n  first mismatch at ").append(i)
+              .append(": expected ").append(expected[i]).append(", got ").append(data[i]);
+        }
+        return new Result(false, sb.toString());
+    }
+
+    /**
+     * long[] 版: Arrays.sort の結果とそのまま比べる
+     */
+    private static Result runLongCase(LongSorter sorter, TestCase tc, DataGenerator generator) {
+        long[] original = generator.generateLongs(tc.pattern(), tc.size(), tc.seed());
+        long[] expected = original.clone();
+        Arrays.sort(expected);
+        long[] data = original.clone();
+
+        long start = System.nanoTime();
+        sorter.sort(data);
+        long elapsedMicros = (System.nanoTime() - start) / 1_000;
+
+        int mismatch = Arrays.mismatch(data, expected);
+        return primitiveResult(sorter.name(), "long[]", tc, elapsedMicros, mismatch,
+                () -> Arrays.toString(original), () -> Arrays.toString(expected), () -> Arrays.toString(data),
+                mismatch < 0 ? "" : expected[mismatch] + ", got " + data[mismatch]);
+    }
+
+    /**
+     * double[] 版: Arrays.sort の結果と比べる（Arrays.mismatch は -0.0 と 0.0 を区別し、NaN どうしは同じとみなす）
+     */
+    private static Result runDoubleCase(DoubleSorter sorter, TestCase tc, DataGenerator generator) {
+        double[] original = generator.generateDoubles(tc.pattern(), tc.size(), tc.seed());
+        double[] expected = original.clone();
+        Arrays.sort(expected);
+        double[] data = original.clone();
+
+        long start = System.nanoTime();
+        sorter.sort(data);
+        long elapsedMicros = (System.nanoTime() - start) / 1_000;
+
+        int mismatch = Arrays.mismatch(data, expected);
+        return primitiveResult(sorter.name(), "double[]", tc, elapsedMicros, mismatch,
+                () -> Arrays.toString(original), () -> Arrays.toString(expected), () -> Arrays.toString(data),
+                mismatch < 0 ? "" : expected[mismatch] + ", got " + data[mismatch]);
+    }
+
+    /**
+     * RecordSort: int / long / double キーと比較関数の argsort、キーと payload を一緒に動かす sort を確かめる
+     * payload には元の添字を入れておき、argsort と同じ順列になること・同じキーの中で添字が増えていく（安定）ことを見る
+     */
+    private static Result runRecordCase(TestCase tc, DataGenerator generator) {
+        int n = tc.size();
+        int[] ints = tc.data(generator);
+        long[] longs = generator.generateLongs(tc.pattern(), n, tc.seed());
+        double[] doubles = generator.generateDoubles(tc.pattern(), n, tc.seed());
+
+        long start = System.nanoTime();
+        int[] byInt = RecordSort.argsort(ints);
+        int[] byLong = RecordSort.argsort(longs);
+        int[] byDouble = RecordSort.argsort(doubles);
+        int[] byComparator = RecordSort.argsort(n, (i, j) -> Integer.compare(ints[i], ints[j]));
+        long elapsedMicros = (System.nanoTime() - start) / 1_000;
+
+        String error = null;
+        if (!isStableOrder(byInt, (i, j) -> Integer.compare(ints[i], ints[j]))) error = "argsort(int[])";
+        else if (!isStableOrder(byLong, (i, j) -> Long.compare(longs[i], longs[j]))) error = "argsort(long[])";
+        else if (!isStableOrder(byDouble, (i, j) -> Double.compare(doubles[i], doubles[j]))) error = "argsort(double[])";
+        else if (!Arrays.equals(byComparator, byInt)) error = "argsort(n, comparator)";
+
+        if (error == null) {
+            int[] keys = ints.clone();
+            int[] payload = identity(n);
+            double[] dkeys = doubles.clone();
+            int[] dpayload = identity(n);
+            RecordSort.sort(keys, payload);
+            RecordSort.sort(dkeys, dpayload);
+
+            double[] dexpected = doubles.clone();
+            Arrays.sort(dexpected);
+            if (!Arrays.equals(payload, byInt) || !isSorted(keys)) error = "sort(int[], payload)";
+            else if (!Arrays.equals(dpayload, byDouble) || !Arrays.equals(dkeys, dexpected)) error = "sort(double[], payload)";
+        }
+
+        String line = String.format("[%s] %-15s %-8s %s elapsed=%9d µs", error == null ? "PASS" : "FAIL", "Record Sort", "", tc.label(), elapsedMicros);
+        return error == null ? new Result(true, line) : new Result(false, line + "\n  wrong result from " + error);
+    }
+
+    // 順列であり、cmp の順に並び、同じものは添字の小さい順
+    private static boolean isStableOrder(int[] order, RecordSort.IndexComparator cmp) {
+        boolean[] seen = new boolean[order.length];
+        for (int i = 0; i < order.length; i++) {
+            int x = order[i];
+            if (x < 0 || x >= order.length || seen[x]) return false;
+            seen[x] = true;
+            if (i > 0) {
+                int c = cmp.compare(order[i - 1], x);
+                if (c > 0 || (c == 0 && order[i - 1] > x)) return false;
+            }
         }
+        return true;
+    }
 
-        if (allPassed) {
-            System.out.println("All test cases passed.");
+    private static int[] identity(int n) {
+        int[] a = new int[n];
+        for (int i = 0; i < n; i++) a[i] = i;
+        return a;
+    }
+
+    private static Result primitiveResult(String name, String type, TestCase tc, long elapsedMicros, int mismatch,
+                                          Supplier<String> original,
+                                          Supplier<String> expected,
+                                          Supplier<String> output, String firstMismatch) {
+        boolean ok = mismatch < 0;
+        String line = String.format("[%s] %-15s %-8s %s elapsed=%9d µs", ok ? "PASS" : "FAIL", name, type, tc.label(), elapsedMicros);
+        if (ok) return new Result(true, line);
+
+        StringBuilder sb = new StringBuilder(line);
+        if (tc.size() <= PRINT_ARRAY_MAX) {
+            sb.append("\n  input   : ").append(original.get());
+            sb.append("\n  expected: ").append(expected.get());
+            sb.append("\n  output  : ").append(output.get());
         } else {
-            System.out.println("Some test cases failed. See logs above.");
+            sb.append("\n  first mismatch at ").append(mismatch).append(": expected ").append(firstMismatch);
+        }
+        return new Result(false, sb.toString());
+    }
+
+    // ---------------- 性能の基準値 ----------------
+
+    /**
+     * 測定して基準値と比べる（並列にすると互いの邪魔になるので1つずつ）
+     * sorter ごとに新しい JVM で forks 回測る。同じ JVM で続けて測ると前の sorter が残した JIT の状態
+     * （インライン化やプロファイル）を持ち込むうえ、JVM ごとの当たり外れで全体が数十%ずれることがあるため、
+     * 複数の JVM の測定値をまとめて、そのずれもばらつきとして検定に入れる
+     *
+     * 機械そのものの速さ（周波数や同じホストのほかの負荷）も実行ごとに変わるので、JVM ごとに REFERENCE_KEY を
+     * 一緒に測り、その中央値が基準値ファイルのものと同じになるように測定値を割りそろえてから比べる
+     * @return SLOWER になった数
+     */
+    private static int runBaseline(Path file, boolean update, int forks, int maxSize, List<Entry> sorters) throws IOException, InterruptedException {
+        boolean exists = Files.exists(file);
+        Map<PerfBaseline.Key, long[]> baseline = exists ? PerfBaseline.load(file) : new LinkedHashMap<>();
+        Map<PerfBaseline.Key, long[]> current = new LinkedHashMap<>();
+
+        System.out.printf("baseline=%s (%s), forks=%d, warmup=%d, reps=%d, max size %d%n",
+                file, exists ? "compare" : "record", forks, BASELINE_WARMUP, BASELINE_REPS, maxSize);
+
+        long[] baseReference = baseline.get(REFERENCE_KEY);
+        double referenceNs = baseReference != null ? PerfBaseline.median(baseReference) : Double.NaN;
+        long[] references = new long[0];
+        long[] rawReferences = new long[0];
+
+        int slower = 0;
+        for (int s = 0; s < sorters.size(); s++) {
+            Map<PerfBaseline.Key, long[]> pooled = new LinkedHashMap<>();
+            for (int f = 0; f < forks; f++) {
+                Map<PerfBaseline.Key, long[]> fork = measureInChild(s, maxSize);
+                long[] ref = fork.remove(REFERENCE_KEY);
+                if (Double.isNaN(referenceNs)) referenceNs = PerfBaseline.median(ref);
+                double scale = referenceNs / PerfBaseline.median(ref);
+
+                rawReferences = PerfBaseline.concat(rawReferences, ref);
+                references = PerfBaseline.concat(references, PerfBaseline.scale(ref, scale));
+                fork.forEach((k, ns) -> pooled.merge(k, PerfBaseline.scale(ns, scale), PerfBaseline::concat));
+            }
+            for (Map.Entry<PerfBaseline.Key, long[]> m : pooled.entrySet()) {
+                PerfBaseline.Key key = m.getKey();
+                long[] ns = m.getValue();
+                current.put(key, ns);
+
+                long[] base = baseline.get(key);
+                PerfBaseline.Verdict v = PerfBaseline.compare(base, ns);
+                if (v == PerfBaseline.Verdict.SLOWER) slower++;
+
+                String line = String.format("[%-6s] %-15s pattern=%-14s size=%8d median=%11.1f µs p10=%11.1f p90=%11.1f",
+                        v, key.sorter(), key.pattern(), key.size(),
+                        PerfBaseline.median(ns) / 1_000.0,
+                        PerfBaseline.percentile(ns, 0.1) / 1_000.0,
+                        PerfBaseline.percentile(ns, 0.9) / 1_000.0);
+                if (base != null) {
+                    double b = PerfBaseline.median(base);
+                    line += String.format("  base=%11.1f µs %+6.1f%%  p=%.4f", b / 1_000.0,
+                            (PerfBaseline.median(ns) / b - 1) * 100,
+                            PerfBaseline.pValue(base, ns));
+                }
+                System.out.println(line);
+            }
+        }
+
+        current.put(REFERENCE_KEY, references);
+        if (baseReference != null) {
+            System.out.printf("reference (%s): %.1f µs now, %.1f µs in baseline; values above are scaled to the baseline%n",
+                    REFERENCE_SORTER.name(), PerfBaseline.median(rawReferences) / 1_000.0, referenceNs / 1_000.0);
+        }
+
+        if (!exists || update) {
+            baseline.putAll(current);
+            PerfBaseline.save(file, baseline);
+            System.out.println("Baseline written to " + file);
         }
+        System.out.println(slower == 0
+                ? "No significant slowdowns."
+                : slower + " significant slowdown(s) (p < " + PerfBaseline.ALPHA + ", median +"
+                        + Math.round(PerfBaseline.MIN_EFFECT * 100) + "% or more).");
+        return slower;
+    }
+
+    /**
+     * sorters[index] を子プロセス（同じ java・同じクラスパス）で測り、結果を一時ファイル経由で受け取る
+     */
+    private static Map<PerfBaseline.Key, long[]> measureInChild(int index, int maxSize) throws IOException, InterruptedException {
+        Path out = Files.createTempFile("sort-baseline-", ".tsv");
+        try {
+            String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+            Process p = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"), "SortTestEngine",
+                    "--measure=" + index, "--max-size=" + maxSize, "--baseline=" + out)
+                    .inheritIO()
+                    .start();
+            int exit = p.waitFor();
+            if (exit != 0) throw new IOException("measurement process for sorter #" + index + " exited with " + exit);
+            return PerfBaseline.load(out);
+        } finally {
+            Files.deleteIfExists(out);
+        }
+    }
+
+    /**
+     * 1つの sorter の全ケースを測る
+     * 1ケースずつまとめて測ると、その間だけ機械が遅い（速い）とそのケースの測定値が全部ずれてしまうので、
+     * 全ケースをウォームアップしたあと「各ケース1回ずつ」を BASELINE_REPS 周まわす
+     * （各ケースの測定値が測定時間全体に散らばり、ばらつきとして検定に入る）
+     * 最後のケースとして REFERENCE_KEY も同じように測る
+     */
+    private static Map<PerfBaseline.Key, long[]> measureSorter(Entry e, int maxSize, DataGenerator generator) {
+        List<PerfBaseline.Key> keys = new ArrayList<>();
+        List<Sorter> measured = new ArrayList<>();
+        List<int[]> sources = new ArrayList<>();
+        for (DataGenerator.Pattern pattern : DataGenerator.Pattern.values()) {
+            for (int size : LARGE_SIZES) {
+                if (size > maxSize || size > e.maxSize()) continue;
+                keys.add(new PerfBaseline.Key(e.sorter().name(), pattern, size));
+                measured.add(e.sorter());
+                sources.add(generator.generate(pattern, size, size));
+            }
+        }
+        keys.add(REFERENCE_KEY);
+        measured.add(REFERENCE_SORTER);
+        sources.add(generator.generate(REFERENCE_KEY.pattern(), REFERENCE_KEY.size(), REFERENCE_KEY.size()));
+
+        // ウォームアップ（回数と時間の両方）して、1回の測定が BASELINE_SAMPLE_NS くらいになる個数を決める
+        int[][][] work = new int[keys.size()][][];
+        int[] batch = new int[keys.size()];
+        for (int k = 0; k < keys.size(); k++) {
+            int[] source = sources.get(k);
+            work[k] = new int[1][source.length];
+            long fastest = Long.MAX_VALUE;
+            long warmupEnd = System.nanoTime() + BASELINE_WARMUP_NS;
+            for (int i = 0; i < BASELINE_WARMUP || System.nanoTime() < warmupEnd; i++) {
+                fastest = Math.min(fastest, sortBatch(measured.get(k), source, work[k]));
+            }
+            batch[k] = (int) Math.min(BASELINE_MAX_BATCH, Math.max(1, BASELINE_SAMPLE_NS / Math.max(1, fastest)));
+            if (batch[k] > 1) work[k] = new int[batch[k]][source.length];
+        }
+
+        long[][] ns = new long[keys.size()][BASELINE_REPS];
+        for (int r = 0; r < BASELINE_REPS; r++) {
+            for (int k = 0; k < keys.size(); k++) {
+                ns[k][r] = sortBatch(measured.get(k), sources.get(k), work[k]) / batch[k];
+            }
+        }
+
+        Map<PerfBaseline.Key, long[]> result = new LinkedHashMap<>();
+        for (int k = 0; k < keys.size(); k++) result.put(keys.get(k), ns[k]);
+        return result;
+    }
+
+    private static long sortBatch(Sorter sorter, int[] source, int[][] work) {
+        for (int[] w : work) System.arraycopy(source, 0, w, 0, source.length);
+        long t0 = System.nanoTime();
+        for (int[] w : work) sorter.sort(w);
+        return System.nanoTime() - t0;
     }
 
     private static boolean isSorted(int[] arr) {
@@ -65,4 +535,16 @@ public class SortTestEngine {
         }
         return true;
     }
+
+    // 要素の並び順に依らないハッシュ（各値を混ぜてから足す）
+    private static long fingerprint(int[] arr) {
+        long h = arr.length;
+        for (int v : arr) {
+            long x = v * 0x9E3779B97F4A7C15L;
+            x ^= x >>> 32;
+            x *= 0xD6E8FEB86659FD93L;
+            h += x ^ (x >>> 32);
+        }
+        return h;
+    }
 }
@@ -1,4 +1,36 @@
+import java.util.concurrent.ForkJoinPool;
+
 public interface Sorter {
     String name();
     void sort(int[] arr);
+
+    /**
+     * sort と同じ手順で並べ、実際に行った操作の回数を counter に渡す（数え方は OpCounter を参照）
+     * 既定は数えずに sort するだけ（中身を数えられない Arrays.sort など用）
+     */
+    default void sort(int[] arr, OpCounter counter) {
+        sort(arr);
+    }
+
+    /**
+     * arr[from, to) だけを並べる
+     * 既定はその範囲をコピーして sort し、書き戻す（範囲のまま in-place で並べられるソートは上書きする）
+     */
+    default void sort(int[] arr, int from, int to) {
+        if (from == 0 && to == arr.length) {
+            sort(arr);
+            return;
+        }
+        int[] part = java.util.Arrays.copyOfRange(arr, from, to);
+        sort(part);
+        System.arraycopy(part, 0, arr, from, part.length);
+    }
+
+    /**
+     * 同じソートを pool の上で動かすもの（並列ソートのスレッド数をそろえて比べたいとき用）
+     * 既定は自分自身（プールを使わない逐次のソート用）
+     */
+    default Sorter onPool(ForkJoinPool pool) {
+        return this;
+    }
 }
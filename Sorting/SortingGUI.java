@@ -2,12 +2,16 @@ import javax.swing.*;
 import javax.swing.Timer;
 import java.awt.*;
 import java.awt.event.ActionEvent;
+import java.awt.image.BufferedImage;
 import java.io.File;
-import java.nio.file.Files;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 import java.util.List;
-import java.util.ArrayList;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class SortingGUI {
 
@@ -25,7 +29,14 @@ public class SortingGUI {
     private final List<StepSortable> sorters = List.of(
             new MergeSort(),
             new BubbleSort(),
-            new SelectionSort()
+            new SelectionSort(),
+            new ParallelMergeSort(),
+            new IntroSort(),
+            new RadixSort(),
+            new AmericanFlagSort(),
+            new TimSort(),
+            new CountingSort(),
+            new ParallelSampleSort()
     );
 
     // ----- Data -----
@@ -54,6 +65,14 @@ public class SortingGUI {
     private JButton raceButton;
     private JButton resetButton;
 
+    // ----- Seek / Scrub -----
+    private final JSlider scrubSlider = new JSlider(0, 0, 0);
+    private final JLabel scrubLabel = new JLabel("Step 0");
+    private JButton pauseButton;
+    private JButton stepBackButton;
+    private JButton stepForwardButton;
+    private boolean updatingScrub = false;
+
     // ----- Center View -----
     private final CardLayout centerCards = new CardLayout();
     private final JPanel centerPanel = new JPanel(centerCards);
@@ -70,6 +89,7 @@ public class SortingGUI {
     // ----- Status + Result Panels -----
     private final JLabel statusLabel = new JLabel("Ready");
     private final JLabel metricsLabel = new JLabel("Speed 100%");
+    private final JProgressBar generationBar = new JProgressBar();
 
     private final JTextArea latestArea = new JTextArea(13, 28);
     private final JTextArea historyArea = new JTextArea(16, 28);
@@ -78,39 +98,44 @@ public class SortingGUI {
     private Timer timer;
     private boolean isRaceMode = false;
 
-    // Left run
-    private List<SortStep> stepsL = List.of();
-    private int idxL = 0;
-    private int[] curL = new int[0];
-    private int compareAL = -1, compareBL = -1, rangeLL = -1, rangeRL = -1;
-
-    // Right run
-    private List<SortStep> stepsR = List.of();
-    private int idxR = 0;
-    private int[] curR = new int[0];
-    private int compareAR = -1, compareBR = -1, rangeLR = -1, rangeRR = -1;
-
-    // Metrics (approx) + time
+    // Left / Right runs (steps are generated on worker threads and recorded for seeking)
+    private final Lane laneL = new Lane();
+    private final Lane laneR = new Lane();
+
+    // One worker per lane, so Left and Right are generated at the same time (daemon: never blocks exit)
+    private final ExecutorService generators = Executors.newFixedThreadPool(2, r -> {
+        Thread t = new Thread(r, "step-generator");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // Current run (kept after completion so the recorded steps can still be scrubbed)
+    private boolean runActive = false;
+    private boolean runCompare = false;
+    private StepSortable runLeft;
+    private StepSortable runRight;
+
+    // Race: the winner comes from really running both sorters (SortRace); the replay is cosmetic
+    private boolean runRace = false;
+    private SortRace race;
+    private SortRace.Result raceResult;
+    private String raceNotMeasured;         // why the race has no measured result (null = measured or measuring)
+
+    // Metrics (counted from step events) + time
     private long startNs = 0L;
     private long endNs = 0L;
 
-    // Finish time per side (for race)
-    private long finishNsL = 0L;
-    private long finishNsR = 0L;
-
-    private int comparesL = 0, writesL = 0;
-    private int comparesR = 0, writesR = 0;
-    private int[] prevL = null, prevR = null;
-
     // Smoothness control
     private double accumulator = 0.0;
     private double stepsPerTickBase = 1.0;
     private int tick = 0;
     private int totalTicks = 1;
+    private boolean pacedExactly = false;   // pacing uses the real step counts (known once generation finished)
 
     // Playback shaping (simple + safe)
     private static final int TARGET_MS_AT_N50 = 10_000;
     private static final int FRAME_DELAY_MS = 20;
+    private static final long MAX_VISUAL_FILE_BYTES = 8L << 20;   // larger text FILE inputs go to ExternalSorter
     private static final int TARGET_MIN_MS = 2_000;
     private static final int TARGET_MAX_MS = 15_000;
     private static final double SIZE_EXP = 0.50;
@@ -148,11 +173,21 @@ public class SortingGUI {
         JPanel rightPanel = buildRightPanel();
         frame.add(rightPanel, BorderLayout.EAST);
 
-        // Bottom status
-        JPanel bottom = new JPanel(new BorderLayout());
+        // Bottom: seek bar + status
+        JPanel status = new JPanel(new BorderLayout());
+        status.add(statusLabel, BorderLayout.WEST);
+        status.add(metricsLabel, BorderLayout.EAST);
+        generationBar.setIndeterminate(true);
+        generationBar.setStringPainted(true);
+        generationBar.setVisible(false);
+        JPanel generationBox = new JPanel(new FlowLayout(FlowLayout.CENTER, 0, 0));
+        generationBox.add(generationBar);
+        status.add(generationBox, BorderLayout.CENTER);
+
+        JPanel bottom = new JPanel(new BorderLayout(0, 3));
         bottom.setBorder(BorderFactory.createEmptyBorder(3, 8, 3, 8));
-        bottom.add(statusLabel, BorderLayout.WEST);
-        bottom.add(metricsLabel, BorderLayout.EAST);
+        bottom.add(buildSeekPanel(), BorderLayout.NORTH);
+        bottom.add(status, BorderLayout.SOUTH);
         frame.add(bottom, BorderLayout.SOUTH);
 
         // Listeners
@@ -167,6 +202,10 @@ public class SortingGUI {
         });
         speedValueLabel.setText(speedSlider.getValue() + "%");
 
+        scrubSlider.addChangeListener(e -> {
+            if (!updatingScrub) onScrub(scrubSlider.getValue());
+        });
+
         frame.setVisible(true);
 
         // Initial UI state
@@ -279,6 +318,32 @@ public class SortingGUI {
         return p;
     }
 
+    private JPanel buildSeekPanel() {
+        pauseButton = new JButton("Pause");
+        pauseButton.addActionListener(this::onPause);
+
+        stepBackButton = new JButton("< Step");
+        stepBackButton.addActionListener(e -> onStepBy(-1));
+
+        stepForwardButton = new JButton("Step >");
+        stepForwardButton.addActionListener(e -> onStepBy(1));
+
+        JPanel btns = new JPanel(new FlowLayout(FlowLayout.LEFT, 6, 0));
+        btns.add(pauseButton);
+        btns.add(stepBackButton);
+        btns.add(stepForwardButton);
+
+        scrubLabel.setPreferredSize(new Dimension(180, 18));
+
+        JPanel p = new JPanel(new BorderLayout(8, 0));
+        p.add(btns, BorderLayout.WEST);
+        p.add(scrubSlider, BorderLayout.CENTER);
+        p.add(scrubLabel, BorderLayout.EAST);
+
+        updateSeekControls();
+        return p;
+    }
+
     private static void addLabel(JPanel p, GridBagConstraints c, int row, int col, String text, Font f) {
         JLabel lbl = new JLabel(text);
         lbl.setFont(f);
@@ -390,11 +455,25 @@ public class SortingGUI {
                     statusLabel.setText("No file selected");
                     return;
                 }
-                String content = Files.readString(selectedFile.toPath());
-                baseData = parseInts(content);
-                statusLabel.setText("Loaded FILE size=" + baseData.length);
-                appendHistory(sep());
-                appendHistory(block("Loaded", "FILE | size=" + baseData.length));
+                if (IntDataset.isDataset(selectedFile.toPath())) {
+                    IntDataset.Header h = IntDataset.readHeader(selectedFile.toPath());
+                    long t0 = System.nanoTime();
+                    baseData = IntDataset.read(selectedFile.toPath());
+                    long ms = (System.nanoTime() - t0) / 1_000_000;
+                    String origin = h.pattern() == null ? "binary" : h.pattern() + " seed=" + h.seed();
+                    statusLabel.setText("Loaded FILE size=" + baseData.length + " (" + origin + ", " + ms + " ms)");
+                    appendHistory(sep());
+                    appendHistory(block("Loaded", "FILE | size=" + baseData.length + " | " + origin));
+                } else if (selectedFile.length() > MAX_VISUAL_FILE_BYTES) {
+                    offerExternalSort(selectedFile);
+                    return;
+                } else {
+                    baseData = IntParser.parse(selectedFile.toPath());
+                    if (baseData.length == 0) throw new IllegalArgumentException("No integers found");
+                    statusLabel.setText("Loaded FILE size=" + baseData.length);
+                    appendHistory(sep());
+                    appendHistory(block("Loaded", "FILE | size=" + baseData.length));
+                }
             }
 
             // Reflect on chart(s)
@@ -416,6 +495,44 @@ public class SortingGUI {
         }
     }
 
+    // Files too large to visualize are sorted on disk instead (memory-bounded, in the background)
+    private void offerExternalSort(File input) {
+        File output = new File(input.getPath() + ".sorted.txt");
+        // Always an O(n log n) in-place sort: chunks are millions of ints, and a quadratic pick would never finish
+        Sorter sorter = new IntroSort();
+        int answer = JOptionPane.showConfirmDialog(null,
+                input.getName() + " is too large to visualize (" + (input.length() >> 20) + " MB).\n"
+                        + "Sort it on disk with " + sorter.name() + " into " + output.getName() + "?",
+                "External sort", JOptionPane.OK_CANCEL_OPTION);
+        if (answer != JOptionPane.OK_OPTION) {
+            statusLabel.setText("File too large to visualize");
+            return;
+        }
+
+        statusLabel.setText("External sort running: " + input.getName());
+        appendHistory(sep());
+        appendHistory(block("External sort", input.getName() + " -> " + output.getName() + " | " + sorter.name()));
+
+        Thread worker = new Thread(() -> {
+            String result;
+            try {
+                long t0 = System.nanoTime();
+                long count = new ExternalSorter(sorter).sort(input.toPath(), output.toPath());
+                long ms = (System.nanoTime() - t0) / 1_000_000;
+                result = "sorted " + count + " values in " + ms + " ms -> " + output.getName();
+            } catch (Exception ex) {
+                result = "failed: " + ex.getMessage();
+            }
+            String message = result;
+            SwingUtilities.invokeLater(() -> {
+                statusLabel.setText("External sort " + message);
+                appendHistory(block("External sort", message));
+            });
+        }, "external-sort");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
     private void onStart(ActionEvent e) {
         isRaceMode = false;
         startRun(false);
@@ -428,7 +545,7 @@ public class SortingGUI {
             compareCheck.setSelected(true);
             updateCompareUI();
         }
-        startRun(true);
+        startMeasuredRace();
     }
 
     private void startRun(boolean forceCompare) {
@@ -444,36 +561,28 @@ public class SortingGUI {
         StepSortable leftSorter = sorters.get(algoLeftCombo.getSelectedIndex());
         StepSortable rightSorter = sorters.get(algoRightCombo.getSelectedIndex());
 
-        // Prepare runs
-        curL = baseData.clone();
-        stepsL = leftSorter.steps(curL);
-        idxL = 0;
-        compareAL = compareBL = rangeLL = rangeRL = -1;
-
+        // Steps are generated on the workers; playback starts as soon as the first ones arrive
+        laneL.start(leftSorter, baseData, generators);
         if (compare) {
-            curR = baseData.clone();
-            stepsR = rightSorter.steps(curR);
-            idxR = 0;
-            compareAR = compareBR = rangeLR = rangeRR = -1;
+            laneR.start(rightSorter, baseData, generators);
         } else {
-            curR = new int[0];
-            stepsR = List.of();
-            idxR = 0;
+            laneR.clear();
         }
 
         // Reset metrics/time
         startNs = System.nanoTime();
         endNs = 0L;
-        finishNsL = 0L;
-        finishNsR = 0L;
-
-        comparesL = writesL = 0;
-        comparesR = writesR = 0;
-        prevL = null;
-        prevR = null;
 
-        int totalSteps = Math.max(stepsL.size(), compare ? stepsR.size() : 0);
+        // Paced on a guess first, and again on the real counts when generation finishes
+        long totalSteps = Math.max(laneL.seekLimit(), compare ? laneR.seekLimit() : 0L);
         initPacing(baseData.length, totalSteps);
+        pacedExactly = false;
+
+        runActive = true;
+        runCompare = compare;
+        runRace = isRaceMode;
+        runLeft = leftSorter;
+        runRight = rightSorter;
 
         setControlsEnabled(false);
 
@@ -489,14 +598,12 @@ public class SortingGUI {
         statusLabel.setText(header);
         appendHistory(sep());
         appendHistory(header);
-        appendHistory("Left steps=" + stepsL.size() + (compare ? (" | Right steps=" + stepsR.size()) : ""));
-        appendHistory("");
-
         timer = new Timer(calcDelayMs(), ev -> onTick(compare, leftSorter, rightSorter));
         timer.setInitialDelay(0);
         timer.setCoalesce(true);
         timer.start();
 
+        updateSeekControls();
         updateMetricsLabel();
     }
 
@@ -522,104 +629,316 @@ public class SortingGUI {
     // ---------------- Playback core ----------------
 
     private void onTick(boolean compareMode, StepSortable leftSorter, StepSortable rightSorter) {
-        boolean doneL = idxL >= stepsL.size();
-        boolean doneR = !compareMode || idxR >= stepsR.size();
+        laneL.pump();
+        if (compareMode) laneR.pump();
+        if (!updateGeneration(compareMode)) return;
+
+        boolean doneL = laneL.isDone();
+        boolean doneR = !compareMode || laneR.isDone();
 
         // record finish timestamps (race)
-        if (doneL && finishNsL == 0L) finishNsL = System.nanoTime();
-        if (compareMode && doneR && finishNsR == 0L) finishNsR = System.nanoTime();
+        if (doneL && laneL.finishNs == 0L) laneL.finishNs = System.nanoTime();
+        if (compareMode && doneR && laneR.finishNs == 0L) laneR.finishNs = System.nanoTime();
 
         if (doneL && doneR) {
-            endNs = System.nanoTime();
-            if (timer != null) timer.stop();
-            timer = null;
-
-            setControlsEnabled(true);
-
-            String winnerLine = "";
-            if (compareMode) {
-                winnerLine = decideWinner(leftSorter.name(), rightSorter.name());
-                statusLabel.setText("Completed. " + winnerLine);
-            } else {
-                statusLabel.setText("Completed");
-            }
-
-            latestArea.setText(buildLatestResult(compareMode, leftSorter.name(), rightSorter.name(), winnerLine));
-            appendHistory(buildHistoryBlock(compareMode, leftSorter.name(), rightSorter.name(), winnerLine));
-
-            updateMetricsLabel();
-            isRaceMode = false;
+            finishRun();
             return;
         }
 
+        SortEvents.GuiTickEvent event = new SortEvents.GuiTickEvent();
+        event.begin();
+
         accumulator += stepsPerTickBase;
         int work = 0;
         int maxWork = 6000;
+        int stepsL = 0;
+        int stepsR = 0;
 
+        // Playback may catch up with generation: then the frame just shows what is there
         while (accumulator >= 1.0 && work < maxWork) {
-            if (idxL < stepsL.size()) {
-                SortStep s = stepsL.get(idxL++);
-                updateMetricsForStep(true, s);
-                curL = s.data;
-                compareAL = s.compareA;
-                compareBL = s.compareB;
-                rangeLL = s.rangeL;
-                rangeRL = s.rangeR;
-            } else if (finishNsL == 0L) {
-                finishNsL = System.nanoTime();
-            }
-
-            if (compareMode && idxR < stepsR.size()) {
-                SortStep s = stepsR.get(idxR++);
-                updateMetricsForStep(false, s);
-                curR = s.data;
-                compareAR = s.compareA;
-                compareBR = s.compareB;
-                rangeLR = s.rangeL;
-                rangeRR = s.rangeR;
-            } else if (compareMode && idxR >= stepsR.size() && finishNsR == 0L) {
-                finishNsR = System.nanoTime();
+            boolean moved = false;
+            if (!laneL.isDone()) {
+                if (laneL.stepForward()) {
+                    stepsL++;
+                    moved = true;
+                }
+            } else if (laneL.finishNs == 0L) {
+                laneL.finishNs = System.nanoTime();
+            }
+
+            if (compareMode && !laneR.isDone()) {
+                if (laneR.stepForward()) {
+                    stepsR++;
+                    moved = true;
+                }
+            } else if (compareMode && laneR.finishNs == 0L) {
+                laneR.finishNs = System.nanoTime();
+            }
+
+            if (laneL.isDone() && (!compareMode || laneR.isDone())) break;
+            if (!moved) {
+                accumulator = Math.min(accumulator, stepsPerTickBase);   // waiting for the workers: don't bank steps
+                break;
             }
 
             accumulator -= 1.0;
             work++;
+        }
+
+        long renderStart = System.nanoTime();
+        renderFrame();
+        updateMetricsLabel();
 
-            if (idxL >= stepsL.size() && (!compareMode || idxR >= stepsR.size())) break;
+        // JFR: one event per frame (the bars themselves are painted later, see ChartPanel)
+        event.end();
+        if (event.shouldCommit()) {
+            event.tick = tick;
+            event.leftSteps = stepsL;
+            event.rightSteps = stepsR;
+            event.renderNanos = System.nanoTime() - renderStart;
+            event.commit();
         }
 
-        if (compareMode) {
-            chartLeft.setCompare(compareAL, compareBL);
-            chartLeft.setMergeRange(rangeLL, rangeRL);
-            chartLeft.setData(curL);
+        tick++;
+    }
+
+    // Progress bar while any lane is still generating. When all are done, report the real step
+    // counts and re-pace the remaining ticks on them.
+    // @return false if a generation failed (the run is stopped)
+    private boolean updateGeneration(boolean compareMode) {
+        boolean generating = laneL.generating() || (compareMode && laneR.generating());
+        generationBar.setVisible(generating);
+        if (generating) {
+            generationBar.setString("Generating steps: L " + laneL.generatedSteps()
+                    + (compareMode ? " | R " + laneR.generatedSteps() : ""));
+            return true;
+        }
+        if (pacedExactly) return true;
+        pacedExactly = true;
 
-            chartRight.setCompare(compareAR, compareBR);
-            chartRight.setMergeRange(rangeLR, rangeRR);
-            chartRight.setData(curR);
+        Throwable failure = laneL.failure != null ? laneL.failure : (compareMode ? laneR.failure : null);
+        if (failure != null) {
+            stopPlayback(true);
+            setControlsEnabled(true);
+            statusLabel.setText("Step generation failed: " + failure);
+            appendHistory(block("Step generation failed", String.valueOf(failure)));
+            return false;
+        }
+
+        appendHistory(String.format("Left steps=%d (generated in %.2fs)", laneL.generatedSteps(), (laneL.generatedNs - startNs) / 1e9)
+                + (compareMode ? String.format(" | Right steps=%d (generated in %.2fs)", laneR.generatedSteps(), (laneR.generatedNs - startNs) / 1e9) : ""));
+        appendHistory("");
+
+        long totalSteps = Math.max(laneL.generatedSteps(), compareMode ? laneR.generatedSteps() : 0L);
+        long done = Math.min(laneL.position(), compareMode ? laneR.position() : Integer.MAX_VALUE);
+        int remainingTicks = Math.max(1, totalTicks - tick);
+        stepsPerTickBase = Math.max(1.0, totalSteps - done) / (double) remainingTicks;
+        return true;
+    }
+
+    // ---------------- Measured race ----------------
+
+    // Run both sorters for real on their own threads (warm-up + trials) first, and start the replay
+    // when the times are in: no step generators and no repainting compete with the measurement
+    private void startMeasuredRace() {
+        stopPlayback(false);
+        if (baseData == null || baseData.length == 0) {
+            onGenerate(null);
+            if (baseData == null || baseData.length == 0) return;
+        }
+        StepSortable leftSorter = sorters.get(algoLeftCombo.getSelectedIndex());
+        StepSortable rightSorter = sorters.get(algoRightCombo.getSelectedIndex());
+
+        raceResult = null;
+        raceNotMeasured = null;
+        for (Sorter s : new Sorter[] {leftSorter, rightSorter}) {
+            if (SortRace.isTooSlow(s, baseData.length)) {
+                raceNotMeasured = s.name() + " is O(n^2), races are measured up to n=" + SortRace.QUADRATIC_MAX_SIZE;
+                appendHistory(sep());
+                appendHistory("Real speed not measured: " + raceNotMeasured);
+                startRun(true);
+                return;
+            }
+        }
+
+        int threads = SortRace.defaultThreadsPerSide();
+        SortRace r = new SortRace(leftSorter, rightSorter, baseData, threads);
+        race = r;
+        setControlsEnabled(false);
+        statusLabel.setText("RACE! Measuring real speed: " + leftSorter.name() + " vs " + rightSorter.name() + " (replay starts after)");
+        appendHistory(sep());
+        appendHistory("Measuring real speed: warm-up + trials, " + threads + " thread(s) per side");
+
+        Thread worker = new Thread(() -> {
+            SortRace.Result result = null;
+            Throwable failure = null;
+            try {
+                result = r.run();
+            } catch (Throwable t) {
+                failure = t;
+            }
+            SortRace.Result measured = result;
+            Throwable error = failure;
+            SwingUtilities.invokeLater(() -> onRaceMeasured(r, measured, error));
+        }, "sort-race");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    private void onRaceMeasured(SortRace r, SortRace.Result result, Throwable failure) {
+        if (r != race || r.isCancelled()) return;   // reset, or a newer run started
+        race = null;
+        if (failure != null) {
+            raceNotMeasured = "measurement failed";
+            appendHistory(block("Race measurement failed", String.valueOf(failure)));
+        } else {
+            raceResult = result;
+            appendHistory(buildMeasuredBlock(result));
+        }
+        startRun(true);
+    }
+
+    private String raceWinnerLine() {
+        if (raceResult != null) return raceResult.winnerLine();
+        if (raceNotMeasured != null) return "Result: not measured (" + raceNotMeasured + ")";
+        return "Result: not measured";
+    }
+
+    private void cancelRace() {
+        if (race != null) race.cancel();
+        race = null;
+    }
+
+    private void finishRun() {
+        endNs = System.nanoTime();
+        if (timer != null) timer.stop();
+        timer = null;
+        runActive = false;
+
+        setControlsEnabled(true);
+
+        String leftName = runLeft.name();
+        String rightName = runRight.name();
+
+        String winnerLine = "";
+        if (runCompare) {
+            winnerLine = runRace ? raceWinnerLine() : decideWinner(leftName, rightName);
+            statusLabel.setText("Completed. " + winnerLine);
+        } else {
+            statusLabel.setText("Completed");
+        }
+
+        latestArea.setText(buildLatestResult(runCompare, leftName, rightName, winnerLine));
+        appendHistory(buildHistoryBlock(runCompare, leftName, rightName, winnerLine));
+
+        updateSeekControls();
+        updateMetricsLabel();
+        isRaceMode = false;
+    }
+
+    private void renderFrame() {
+        if (runCompare) {
+            laneL.showOn(chartLeft);
+            laneR.showOn(chartRight);
 
             statusLabel.setText((isRaceMode ? "RACING" : "Running")
-                    + " | Left " + leftSorter.name() + " (" + idxL + "/" + stepsL.size() + ")"
-                    + "  vs  Right " + rightSorter.name() + " (" + idxR + "/" + stepsR.size() + ")");
+                    + " | Left " + runLeft.name() + " (" + laneL.progressText() + ")"
+                    + "  vs  Right " + runRight.name() + " (" + laneR.progressText() + ")");
         } else {
-            chartSingle.setCompare(compareAL, compareBL);
-            chartSingle.setMergeRange(rangeLL, rangeRL);
-            chartSingle.setData(curL);
+            laneL.showOn(chartSingle);
 
-            if (rangeLL >= 0 && rangeRL >= 0) {
-                statusLabel.setText("Running | " + leftSorter.name() + " (" + idxL + "/" + stepsL.size()
-                        + ") | range [" + rangeLL + "," + rangeRL + "]");
+            StepState st = laneL.state;
+            if (st.rangeL >= 0 && st.rangeR >= 0) {
+                statusLabel.setText("Running | " + runLeft.name() + " (" + laneL.progressText()
+                        + ") | range [" + st.rangeL + "," + st.rangeR + "]");
             } else {
-                statusLabel.setText("Running | " + leftSorter.name() + " (" + idxL + "/" + stepsL.size() + ")");
+                statusLabel.setText("Running | " + runLeft.name() + " (" + laneL.progressText() + ")");
             }
         }
+        updateSeekControls();
+    }
 
-        tick++;
+    // ---------------- Seek / Scrub ----------------
+
+    private boolean hasRun() {
+        return runLeft != null && laneL.hasTimeline();
+    }
+
+    private void onPause(ActionEvent e) {
+        if (timer == null) return;
+        if (timer.isRunning()) {
+            timer.stop();
+            statusLabel.setText("Paused at step " + laneL.position());
+        } else {
+            accumulator = 0.0;
+            timer.start();
+        }
+        updateSeekControls();
+    }
+
+    private void pauseForSeek() {
+        if (timer != null && timer.isRunning()) timer.stop();
+    }
+
+    private void onStepBy(int delta) {
+        if (!hasRun()) return;
+        pauseForSeek();
+
+        if (delta > 0) {
+            laneL.stepForward();
+            if (runCompare) laneR.stepForward();
+        } else {
+            int target = Math.max(0, Math.max(laneL.position(), laneR.position()) + delta);
+            laneL.seek(target);
+            if (runCompare) laneR.seek(target);
+        }
+
+        renderFrame();
+        updateMetricsLabel();
+        if (runActive && laneL.isDone() && (!runCompare || laneR.isDone())) finishRun();
+    }
+
+    private void onScrub(int target) {
+        if (!hasRun()) return;
+        pauseForSeek();
+
+        // Seeking past what has been generated so far pulls the missing steps first
+        laneL.seek(target);
+        if (runCompare) laneR.seek(target);
+
+        renderFrame();
         updateMetricsLabel();
+        statusLabel.setText("Seek | step " + target);
+    }
+
+    private void updateSeekControls() {
+        boolean has = hasRun();
+        boolean running = timer != null && timer.isRunning();
+
+        updatingScrub = true;
+        try {
+            long max = Math.max(laneL.seekLimit(), runCompare ? laneR.seekLimit() : 0L);
+            int pos = Math.max(laneL.position(), runCompare ? laneR.position() : 0);
+            scrubSlider.setMaximum((int) Math.min(Integer.MAX_VALUE, max));
+            scrubSlider.setValue(pos);
+            scrubSlider.setEnabled(has);
+            scrubLabel.setText("Step " + pos + (max > 0 ? " / " + max : ""));
+        } finally {
+            updatingScrub = false;
+        }
+
+        if (pauseButton != null) {
+            pauseButton.setEnabled(timer != null);
+            pauseButton.setText(timer != null && !running ? "Resume" : "Pause");
+            stepBackButton.setEnabled(has);
+            stepForwardButton.setEnabled(has);
+        }
     }
 
     private String decideWinner(String leftName, String rightName) {
         // 1) earlier finish wins
-        long l = finishNsL == 0L ? Long.MAX_VALUE : finishNsL;
-        long r = finishNsR == 0L ? Long.MAX_VALUE : finishNsR;
+        long l = laneL.finishNs == 0L ? Long.MAX_VALUE : laneL.finishNs;
+        long r = laneR.finishNs == 0L ? Long.MAX_VALUE : laneR.finishNs;
 
         // treat very small differences as tie (human-visible)
         long diff = Math.abs(l - r);
@@ -630,26 +949,28 @@ public class SortingGUI {
         }
 
         // 2) tie-breaker: fewer steps
-        int stepsLeft = stepsL.size();
-        int stepsRight = stepsR.size();
+        int stepsLeft = laneL.position();
+        int stepsRight = laneR.position();
         if (stepsLeft != stepsRight) {
             return (stepsLeft < stepsRight) ? ("Winner: " + leftName + " (fewer steps)") : ("Winner: " + rightName + " (fewer steps)");
         }
 
         // 3) tie-breaker: fewer compares
-        if (comparesL != comparesR) {
-            return (comparesL < comparesR) ? ("Winner: " + leftName + " (fewer compares)") : ("Winner: " + rightName + " (fewer compares)");
+        if (laneL.state.compares != laneR.state.compares) {
+            return (laneL.state.compares < laneR.state.compares) ? ("Winner: " + leftName + " (fewer compares)") : ("Winner: " + rightName + " (fewer compares)");
         }
 
-        // 4) tie-breaker: fewer writes
-        if (writesL != writesR) {
-            return (writesL < writesR) ? ("Winner: " + leftName + " (fewer writes)") : ("Winner: " + rightName + " (fewer writes)");
+        // 4) tie-breaker: fewer element writes (a swap writes two elements)
+        long writesLeft = laneL.state.elementWrites();
+        long writesRight = laneR.state.elementWrites();
+        if (writesLeft != writesRight) {
+            return (writesLeft < writesRight) ? ("Winner: " + leftName + " (fewer writes)") : ("Winner: " + rightName + " (fewer writes)");
         }
 
         return "Result: Draw";
     }
 
-    private void initPacing(int n, int totalSteps) {
+    private void initPacing(int n, long totalSteps) {
         tick = 0;
         accumulator = 0.0;
 
@@ -661,41 +982,23 @@ public class SortingGUI {
         stepsPerTickBase = Math.max(1.0, totalSteps) / (double) totalTicks;
     }
 
-    private void updateMetricsForStep(boolean isLeft, SortStep s) {
-        if (s.compareA >= 0 || s.compareB >= 0) {
-            if (isLeft) comparesL++; else comparesR++;
-        }
-
-        if (isLeft) {
-            if (prevL != null) writesL += countDiff(prevL, s.data);
-            prevL = s.data;
-        } else {
-            if (prevR != null) writesR += countDiff(prevR, s.data);
-            prevR = s.data;
-        }
-    }
-
-    private static int countDiff(int[] a, int[] b) {
-        int len = Math.min(a.length, b.length);
-        int diff = 0;
-        for (int i = 0; i < len; i++) if (a[i] != b[i]) diff++;
-        return diff;
-    }
-
     private void stopPlayback(boolean keepLatest) {
         if (timer != null) {
             timer.stop();
             timer = null;
         }
-        stepsL = List.of(); stepsR = List.of();
-        idxL = idxR = 0;
+        runActive = false;
+        laneL.stop();
+        laneR.stop();
+        generationBar.setVisible(false);
+        cancelRace();
 
         if (!keepLatest) {
             startNs = endNs = 0L;
-            finishNsL = finishNsR = 0L;
-            comparesL = writesL = comparesR = writesR = 0;
-            prevL = prevR = null;
+            laneL.clear();
+            laneR.clear();
         }
+        updateSeekControls();
         updateMetricsLabel();
     }
 
@@ -746,14 +1049,16 @@ public class SortingGUI {
         boolean compare = compareCheck.isSelected();
         if (!compare) {
             metricsLabel.setText(base
-                    + " | Steps " + idxL + (stepsL.isEmpty() ? "" : "/" + stepsL.size())
-                    + " | Compares " + comparesL
-                    + " | Writes " + writesL
+                    + " | Steps " + laneL.progressText()
+                    + " | Compares " + laneL.state.compares
+                    + " | Swaps " + laneL.state.swaps
+                    + " | Reads " + laneL.state.reads
+                    + " | Writes " + laneL.state.writes
                     + String.format(" | Time %.2fs", sec));
         } else {
             metricsLabel.setText(base
-                    + " | L " + idxL + "/" + stepsL.size() + " C" + comparesL + " W" + writesL
-                    + " | R " + idxR + "/" + stepsR.size() + " C" + comparesR + " W" + writesR
+                    + " | L " + laneL.progressText() + " C" + laneL.state.compares + " S" + laneL.state.swaps + " W" + laneL.state.writes
+                    + " | R " + laneR.progressText() + " C" + laneR.state.compares + " S" + laneR.state.swaps + " W" + laneR.state.writes
                     + String.format(" | Time %.2fs", sec));
         }
     }
@@ -780,29 +1085,52 @@ public class SortingGUI {
 
         if (!compareMode) {
             sb.append("Algorithm : ").append(leftName).append("\n");
-            sb.append("Steps     : ").append(stepsL.size()).append("\n");
-            sb.append("Compares  : ").append(comparesL).append("\n");
-            sb.append("Writes    : ").append(writesL).append("\n");
+            sb.append("Steps     : ").append(laneL.position()).append("\n");
+            sb.append("Compares  : ").append(laneL.state.compares).append("\n");
+            sb.append("Swaps     : ").append(laneL.state.swaps).append("\n");
+            sb.append("Reads     : ").append(laneL.state.reads).append("\n");
+            sb.append("Writes    : ").append(laneL.state.writes).append("\n");
         } else {
-            double secL = (finishNsL == 0L || startNs == 0L) ? 0.0 : (finishNsL - startNs) / 1_000_000_000.0;
-            double secR = (finishNsR == 0L || startNs == 0L) ? 0.0 : (finishNsR - startNs) / 1_000_000_000.0;
+            double secL = (laneL.finishNs == 0L || startNs == 0L) ? 0.0 : (laneL.finishNs - startNs) / 1_000_000_000.0;
+            double secR = (laneR.finishNs == 0L || startNs == 0L) ? 0.0 : (laneR.finishNs - startNs) / 1_000_000_000.0;
 
             sb.append("[Left]\n");
             sb.append("Algorithm : ").append(leftName).append("\n");
             sb.append("Finish    : ").append(String.format("%.2fs\n", secL));
-            sb.append("Steps     : ").append(stepsL.size()).append("\n");
-            sb.append("Compares  : ").append(comparesL).append("\n");
-            sb.append("Writes    : ").append(writesL).append("\n\n");
+            sb.append("Steps     : ").append(laneL.position()).append("\n");
+            sb.append("Compares  : ").append(laneL.state.compares).append("\n");
+            sb.append("Swaps     : ").append(laneL.state.swaps).append("\n");
+            sb.append("Reads     : ").append(laneL.state.reads).append("\n");
+            sb.append("Writes    : ").append(laneL.state.writes).append("\n\n");
 
             sb.append("[Right]\n");
             sb.append("Algorithm : ").append(rightName).append("\n");
             sb.append("Finish    : ").append(String.format("%.2fs\n", secR));
-            sb.append("Steps     : ").append(stepsR.size()).append("\n");
-            sb.append("Compares  : ").append(comparesR).append("\n");
-            sb.append("Writes    : ").append(writesR).append("\n");
+            sb.append("Steps     : ").append(laneR.position()).append("\n");
+            sb.append("Compares  : ").append(laneR.state.compares).append("\n");
+            sb.append("Swaps     : ").append(laneR.state.swaps).append("\n");
+            sb.append("Reads     : ").append(laneR.state.reads).append("\n");
+            sb.append("Writes    : ").append(laneR.state.writes).append("\n");
+        }
+
+        if (compareMode && runRace) {
+            sb.append("\n");
+            if (raceNotMeasured != null) {
+                sb.append("Measured  : (not measured: ").append(raceNotMeasured).append(")\n");
+            } else if (raceResult == null) {
+                sb.append("Measured  : (not measured)\n");
+            } else {
+                sb.append("Measured  : median of ").append(raceResult.trials()).append(" trials, ")
+                  .append(raceResult.threadsPerSide()).append(" thread(s)/side\n");
+                sb.append("Left      : wall ").append(formatNs(raceResult.left().medianWallNs()))
+                  .append(" | cpu ").append(formatNs(raceResult.left().medianCpuNs())).append("\n");
+                sb.append("Right     : wall ").append(formatNs(raceResult.right().medianWallNs()))
+                  .append(" | cpu ").append(formatNs(raceResult.right().medianCpuNs())).append("\n");
+            }
+            sb.append("(Race) The winner is decided by the measured times; the replay is only a visualization.\n");
         }
 
-        sb.append("\n(Note) Writes is an approximate value based on step-to-step differences.\n");
+        sb.append("\n(Note) Counts are reported by the algorithms themselves (a swap is not counted as writes).\n");
         return sb.toString();
     }
 
@@ -823,31 +1151,54 @@ public class SortingGUI {
 
         if (!compareMode) {
             sb.append("Algo=").append(leftName)
-              .append(" | steps=").append(stepsL.size())
-              .append(" | compares=").append(comparesL)
-              .append(" | writes=").append(writesL)
+              .append(" | steps=").append(laneL.position())
+              .append(" | compares=").append(laneL.state.compares)
+              .append(" | swaps=").append(laneL.state.swaps)
+              .append(" | reads=").append(laneL.state.reads)
+              .append(" | writes=").append(laneL.state.writes)
               .append("\n\n");
         } else {
-            double secL = (finishNsL == 0L || startNs == 0L) ? 0.0 : (finishNsL - startNs) / 1_000_000_000.0;
-            double secR = (finishNsR == 0L || startNs == 0L) ? 0.0 : (finishNsR - startNs) / 1_000_000_000.0;
+            double secL = (laneL.finishNs == 0L || startNs == 0L) ? 0.0 : (laneL.finishNs - startNs) / 1_000_000_000.0;
+            double secR = (laneR.finishNs == 0L || startNs == 0L) ? 0.0 : (laneR.finishNs - startNs) / 1_000_000_000.0;
 
             sb.append("Left = ").append(leftName)
               .append(String.format(" | finish=%.2fs", secL))
-              .append(" | steps=").append(stepsL.size())
-              .append(" | compares=").append(comparesL)
-              .append(" | writes=").append(writesL)
+              .append(" | steps=").append(laneL.position())
+              .append(" | compares=").append(laneL.state.compares)
+              .append(" | swaps=").append(laneL.state.swaps)
+              .append(" | reads=").append(laneL.state.reads)
+              .append(" | writes=").append(laneL.state.writes)
               .append("\n");
 
             sb.append("Right= ").append(rightName)
               .append(String.format(" | finish=%.2fs", secR))
-              .append(" | steps=").append(stepsR.size())
-              .append(" | compares=").append(comparesR)
-              .append(" | writes=").append(writesR)
+              .append(" | steps=").append(laneR.position())
+              .append(" | compares=").append(laneR.state.compares)
+              .append(" | swaps=").append(laneR.state.swaps)
+              .append(" | reads=").append(laneR.state.reads)
+              .append(" | writes=").append(laneR.state.writes)
               .append("\n\n");
         }
         return sb.toString();
     }
 
+    private static String buildMeasuredBlock(SortRace.Result r) {
+        return "Measured | warmup=" + r.warmups() + " | trials=" + r.trials() + " | threads/side=" + r.threadsPerSide() + "\n"
+                + measuredLine("Left ", r.left()) + measuredLine("Right", r.right());
+    }
+
+    private static String measuredLine(String side, SortRace.Side s) {
+        return side + "= " + s.name()
+                + " | median wall=" + formatNs(s.medianWallNs())
+                + " | median cpu=" + formatNs(s.medianCpuNs())
+                + " | batch=" + s.batch()
+                + (s.sorted() ? "" : " | NOT SORTED") + "\n";
+    }
+
+    private static String formatNs(long ns) {
+        return ns < 0 ? "n/a" : String.format("%.3fms", ns / 1_000_000.0);
+    }
+
     private void appendHistory(String line) {
         historyArea.append(line);
         if (!line.endsWith("\n")) historyArea.append("\n");
@@ -867,72 +1218,655 @@ public class SortingGUI {
 
     private static int[] parseInts(String text) {
         if (text == null) throw new IllegalArgumentException("Input is empty");
-        Pattern p = Pattern.compile("-?\\d+");
-        Matcher m = p.matcher(text);
-        List<Integer> values = new ArrayList<>();
-        while (m.find()) values.add(Integer.parseInt(m.group()));
-        if (values.isEmpty()) throw new IllegalArgumentException("No integers found");
-        int[] a = new int[values.size()];
-        for (int i = 0; i < values.size(); i++) a[i] = values.get(i);
+        int[] a = IntParser.parse(text);
+        if (a.length == 0) throw new IllegalArgumentException("No integers found");
         return a;
     }
 
+    // ---------------- Lane ----------------
+
+    // One side of the playback: a Generation records the sorter's steps on a worker thread,
+    // and the lane copies them into its own timeline on the EDT as playback needs them.
+    // Only LOOKAHEAD steps past 'position' are taken; the rest wait in the worker's bounded queue,
+    // so the worker blocks instead of the timeline growing ahead of playback.
+    // The displayed state is kept at 'position' (forward = replay/drain, backward = keyframe seek)
+    private static final class Lane {
+        private static final int LOOKAHEAD = 1 << 16;   // steps kept ready past the playback position (> steps per frame)
+
+        private Generation generation;
+        private StepTimeline timeline;
+        private StepState state = new StepState(new int[0]);
+        private int position = 0;
+        private long estimated = 0L;
+        private long finishNs = 0L;
+        private long generatedNs = 0L;       // when the last step arrived (0 while generating)
+        private Throwable failure;           // the worker's error, if it stopped with one
+        private final long[] pendingCounts = new long[4];   // counts that belong in front of the next step
+
+        void start(StepSortable sorter, int[] input, ExecutorService executor) {
+            clear();
+            this.timeline = new StepTimeline(input);
+            this.state = new StepState(input);
+            this.state.trackChanges(Math.max(64, input.length / 4));    // for the chart's partial redraw
+            this.estimated = guessSteps(input.length);
+            this.generation = new Generation(sorter, input, timeline.keyframeInterval());
+            this.generation.submit(executor);
+        }
+
+        // Stop generating, but keep the steps received so far for seeking
+        void stop() {
+            if (generation != null) generation.cancel();
+            generation = null;
+        }
+
+        void clear() {
+            stop();
+            timeline = null;
+            state = new StepState(new int[0]);
+            position = 0;
+            estimated = 0L;
+            finishNs = 0L;
+            generatedNs = 0L;
+            failure = null;
+            java.util.Arrays.fill(pendingCounts, 0L);
+        }
+
+        boolean hasTimeline() {
+            return timeline != null;
+        }
+
+        boolean isDone() {
+            if (timeline == null) return true;
+            if (position < timeline.size()) return false;
+            fill();
+            return position >= timeline.size() && !generating();
+        }
+
+        boolean generating() {
+            return generation != null;
+        }
+
+        // Top up the window ahead of playback from what the worker has produced
+        void pump() {
+            if (timeline != null) fill();
+        }
+
+        // Steps produced by the worker so far (may be ahead of the timeline)
+        long generatedSteps() {
+            if (timeline == null) return 0L;
+            return generation != null ? Math.max(timeline.size(), generation.produced()) : timeline.size();
+        }
+
+        int position() {
+            return position;
+        }
+
+        // Upper bound for the seek bar: exact once generation finished, estimate otherwise
+        long seekLimit() {
+            if (timeline == null) return 0L;
+            return generating() ? Math.max(generatedSteps(), estimated) : timeline.size();
+        }
+
+        // Pacing estimate before the real count is known (a sort usually takes a few n log n steps)
+        private static long guessSteps(int n) {
+            return 2L * n * Math.max(1, 32 - Integer.numberOfLeadingZeros(n));
+        }
+
+        // @return false when the next step has not been generated yet
+        boolean stepForward() {
+            if (timeline == null) return false;
+            if (position == timeline.size()) {
+                fill();
+                if (position == timeline.size()) return false;
+            }
+            timeline.apply(position++, state);
+            return true;
+        }
+
+        void seek(int target) {
+            if (timeline == null) return;
+            if (target > timeline.size()) drain(target - timeline.size());
+            position = Math.max(0, Math.min(target, timeline.size()));
+            timeline.seek(position, state);
+        }
+
+        private void fill() {
+            drain(position + LOOKAHEAD - timeline.size());
+        }
+
+        // Copy up to maxSteps finished steps from the worker into the timeline
+        private void drain(int maxSteps) {
+            if (generation == null) return;
+            int limit = timeline.size() + maxSteps;
+            Generation.Chunk chunk;
+            while (timeline.size() < limit && (chunk = generation.peek()) != null) {
+                while (chunk.read < chunk.size && timeline.size() < limit) {
+                    int i = chunk.read++;
+                    int k = chunk.kinds[i];
+                    if (k < Generation.COUNT) {
+                        flushCounts(false);
+                        SortStep.apply(Generation.KINDS[k], chunk.as[i], chunk.bs[i], timeline);
+                    } else {
+                        pendingCounts[k - Generation.COUNT] += ((long) chunk.as[i] << 32) | (chunk.bs[i] & 0xFFFFFFFFL);
+                    }
+                }
+                if (chunk.read == chunk.size) generation.poll();
+            }
+            if (generation.isFinished()) {
+                generatedNs = System.nanoTime();
+                failure = generation.failure;
+                flushCounts(true);
+                generation = null;
+            }
+        }
+
+        // Counts are only handed to the timeline together with the step that follows them:
+        // counts after the current last step would otherwise be applied twice while it grows.
+        // The ones after the very last step go in at the end (and to the state, if it is already there)
+        private void flushCounts(boolean last) {
+            boolean atEnd = last && position == timeline.size() && position > 0;
+            for (int w = 0; w < 4; w++) {
+                long n = pendingCounts[w];
+                if (n == 0) continue;
+                pendingCounts[w] = 0;
+                switch (w) {
+                    case 0 -> { timeline.compares(n); if (atEnd) state.compares(n); }
+                    case 1 -> { timeline.swaps(n); if (atEnd) state.swaps(n); }
+                    case 2 -> { timeline.reads(n); if (atEnd) state.reads(n); }
+                    default -> { timeline.writes(n); if (atEnd) state.writes(n); }
+                }
+            }
+        }
+
+        String progressText() {
+            if (!generating()) {
+                int total = timeline == null ? 0 : timeline.size();
+                return position == total ? String.valueOf(position) : position + "/" + total;
+            }
+            return position + "/~" + seekLimit();
+        }
+
+        void showOn(ChartPanel chart) {
+            chart.show(state);
+        }
+    }
+
+    // Records one sorter's steps on a worker thread. Steps (and counts) are packed into
+    // fixed-size chunks and handed over through a bounded queue, so the worker never touches
+    // anything the EDT reads, and it waits when playback is far behind instead of filling memory.
+    // Cancelling stops the worker at its next chunk boundary.
+    private static final class Generation implements StepSink, Runnable {
+        static final SortStep.Kind[] KINDS = SortStep.Kind.values();
+        static final int COUNT = KINDS.length;       // kinds COUNT..COUNT+3 = compares/swaps/reads/writes(n)
+        private static final int CHUNK = 8192;
+        private static final int QUEUE_CHUNKS = 256;
+
+        static final class Chunk {
+            final byte[] kinds = new byte[CHUNK];
+            final int[] as = new int[CHUNK];
+            final int[] bs = new int[CHUNK];
+            int size = 0;
+            int read = 0;        // EDT side
+        }
+
+        private final StepSortable sorter;
+        private final int[] input;
+        private final int keyframeInterval;
+        private final BlockingQueue<Chunk> queue = new ArrayBlockingQueue<>(QUEUE_CHUNKS);
+        private final AtomicLong produced = new AtomicLong();
+        private volatile boolean cancelled = false;
+        private volatile boolean finished = false;
+        private volatile Throwable failure;
+        private Future<?> future;
+        private Chunk current = new Chunk();        // worker side
+        private long steps = 0;                     // worker side, published to 'produced' per chunk
+
+        Generation(StepSortable sorter, int[] input, int keyframeInterval) {
+            this.sorter = sorter;
+            this.input = input.clone();
+            this.keyframeInterval = keyframeInterval;
+        }
+
+        void submit(ExecutorService executor) {
+            future = executor.submit(this);
+        }
+
+        void cancel() {
+            cancelled = true;
+            if (future != null) future.cancel(true);
+            queue.clear();      // unblocks a worker waiting for room
+        }
+
+        long produced() {
+            return produced.get();
+        }
+
+        // All steps are in the queue (or the worker stopped with a failure)
+        boolean isFinished() {
+            return finished && queue.isEmpty();
+        }
+
+        Chunk peek() {
+            return queue.peek();
+        }
+
+        void poll() {
+            queue.poll();
+        }
+
+        @Override
+        public void run() {
+            SortEvents.StepGenerationEvent event = new SortEvents.StepGenerationEvent();
+            event.begin();
+            try {
+                sorter.record(input, this);
+                flush();
+                event.end();
+                if (event.shouldCommit()) {
+                    event.algorithm = sorter.name();
+                    event.size = input.length;
+                    event.steps = (int) Math.min(Integer.MAX_VALUE, steps);
+                    event.keyframeInterval = keyframeInterval;
+                    event.commit();
+                }
+            } catch (CancellationException ignored) {
+                // Reset / new run: nobody reads this generation any more
+            } catch (Throwable t) {
+                failure = t;
+            } finally {
+                finished = true;
+            }
+        }
+
+        private void add(int kind, int a, int b) {
+            Chunk c = current;
+            c.kinds[c.size] = (byte) kind;
+            c.as[c.size] = a;
+            c.bs[c.size] = b;
+            if (kind < COUNT) steps++;
+            if (++c.size == CHUNK) flush();
+        }
+
+        private void flush() {
+            if (cancelled) throw new CancellationException();
+            if (current.size == 0) return;
+            try {
+                queue.put(current);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CancellationException();
+            }
+            current = new Chunk();
+            produced.set(steps);
+        }
+
+        @Override
+        public void compare(int a, int b) {
+            add(SortStep.Kind.COMPARE.ordinal(), a, b);
+        }
+
+        @Override
+        public void swap(int a, int b) {
+            add(SortStep.Kind.SWAP.ordinal(), a, b);
+        }
+
+        @Override
+        public void write(int index, int value) {
+            add(SortStep.Kind.WRITE.ordinal(), index, value);
+        }
+
+        @Override
+        public void read(int index) {
+            add(SortStep.Kind.READ.ordinal(), index, 0);
+        }
+
+        @Override
+        public void range(int from, int to) {
+            add(SortStep.Kind.RANGE.ordinal(), from, to);
+        }
+
+        @Override
+        public void compares(long n) {
+            addCount(0, n);
+        }
+
+        @Override
+        public void swaps(long n) {
+            addCount(1, n);
+        }
+
+        @Override
+        public void reads(long n) {
+            addCount(2, n);
+        }
+
+        @Override
+        public void writes(long n) {
+            addCount(3, n);
+        }
+
+        private void addCount(int which, long n) {
+            if (n != 0) add(COUNT + which, (int) (n >>> 32), (int) n);
+        }
+    }
+
     // ---------------- Chart ----------------
 
+    // Bar chart with a back buffer: only the slots whose value or highlight changed since the
+    // last paint are redrawn, so the cost of a frame follows the number of changes, not n.
+    // A slot is one bar while the bars fit in the panel (n <= width). Beyond that a slot is one
+    // pixel column that summarizes its elements as an envelope: solid up to the column's min,
+    // light up to its max, and a dark tick at its mean, so the whole array stays visible.
     private static class ChartPanel extends JPanel {
+        private static final Color BAR = Color.GRAY;
+        private static final Color BAR_SPREAD = new Color(205, 205, 205);
+        private static final Color BAR_MEAN = Color.DARK_GRAY;
+        private static final Color HIGHLIGHT = Color.RED;
+        private static final Color RANGE = new Color(80, 140, 255);
+        private static final Color RANGE_SPREAD = new Color(180, 205, 255);
+        private static final Color RANGE_MEAN = new Color(30, 70, 170);
+
         private int[] data = new int[0];
         private int compareA = -1;
         private int compareB = -1;
         private int mergeRangeFrom = -1;
         private int mergeRangeTo = -1;
 
+        private BufferedImage buffer;
+        private int max = 1;                 // scale of the bars, kept while the array stays the same
+        private boolean rescale = true;      // recompute max on the next full redraw
+        private boolean fullRedraw = true;
+
+        // layout for (layoutN, layoutW): either bars of barW pixels or one column per pixel
+        private int layoutN = -1;
+        private int layoutW = -1;
+        private boolean columns = false;
+        private int slots = 0;
+        private int barW = 1;
+
+        // slots to redraw on the next paint (each at most once)
+        private boolean[] dirty = new boolean[0];
+        private int[] pending = new int[0];
+        private int pendingCount = 0;
+
+        // column mode: per-column min / max / sum, refreshed for the dirty columns when painting
+        private int[] colMin = new int[0];
+        private int[] colMax = new int[0];
+        private long[] colSum = new long[0];
+
+        // Replace the whole array (the next paint redraws everything)
         public void setData(int[] data) {
             this.data = (data == null) ? new int[0] : data;
+            rescale = true;
+            invalidateAll();
             repaint();
         }
 
-        public void setCompare(int a, int b) {
-            compareA = a;
-            compareB = b;
-            repaint();
+        // Take the changes of a playback state since the previous call and request one repaint
+        public void show(StepState state) {
+            if (state.data != data) {
+                data = state.data;
+                rescale = true;
+                invalidateAll();
+            }
+            if (updateLayout()) invalidateAll();
+            if (!state.drainChanges(this::markIndex)) invalidateAll();
+
+            if (compareA != state.compareA) {
+                markIndex(compareA);
+                markIndex(state.compareA);
+                compareA = state.compareA;
+            }
+            if (compareB != state.compareB) {
+                markIndex(compareB);
+                markIndex(state.compareB);
+                compareB = state.compareB;
+            }
+            if (mergeRangeFrom != state.rangeL || mergeRangeTo != state.rangeR) {
+                markDifference(mergeRangeFrom, mergeRangeTo, state.rangeL, state.rangeR);
+                markDifference(state.rangeL, state.rangeR, mergeRangeFrom, mergeRangeTo);
+                mergeRangeFrom = state.rangeL;
+                mergeRangeTo = state.rangeR;
+            }
+
+            repaintPending();
         }
 
-        public void setMergeRange(int from, int to) {
-            mergeRangeFrom = from;
-            mergeRangeTo = to;
-            repaint();
+        private void invalidateAll() {
+            fullRedraw = true;
+            clearPending();
+        }
+
+        private void clearPending() {
+            for (int k = 0; k < pendingCount; k++) dirty[pending[k]] = false;
+            pendingCount = 0;
+        }
+
+        // Recompute the slot layout if n or the width changed. Returns true if it did
+        private boolean updateLayout() {
+            int n = data.length;
+            int w = getWidth();
+            if (n == layoutN && w == layoutW) return false;
+            clearPending();
+            layoutN = n;
+            layoutW = w;
+            columns = n > w && w > 0;
+            if (columns) {
+                barW = 1;
+                slots = w;
+                colMin = new int[slots];
+                colMax = new int[slots];
+                colSum = new long[slots];
+            } else {
+                barW = Math.max(1, w / Math.max(1, n));
+                slots = Math.min(n, (w + barW - 1) / barW);    // bars past the right edge are never visible
+                colMin = colMax = new int[0];
+                colSum = new long[0];
+            }
+            dirty = new boolean[slots];
+            pending = new int[slots];
+            return true;
+        }
+
+        private int slotOf(int index) {
+            return columns ? (int) ((long) index * slots / data.length) : index;
+        }
+
+        // first element of slot s (slot s covers [firstOf(s), firstOf(s + 1)))
+        private int firstOf(int s) {
+            return columns ? (int) (((long) s * data.length + slots - 1) / slots) : s;
+        }
+
+        private void markIndex(int i) {
+            if (i < 0 || i >= data.length) return;
+            markSlot(slotOf(i));
+        }
+
+        private void markSlot(int s) {
+            if (fullRedraw || s < 0 || s >= slots || dirty[s]) return;
+            dirty[s] = true;
+            pending[pendingCount++] = s;
+        }
+
+        // Mark the slots of [fromA, toA] that are not in [fromB, toB] (-1 = no range)
+        private void markDifference(int fromA, int toA, int fromB, int toB) {
+            if (fromA < 0 || toA < 0) return;
+            if (fromB < 0 || toB < 0 || toB < fromA || fromB > toA) {
+                markIndices(fromA, toA);
+                return;
+            }
+            markIndices(fromA, fromB - 1);
+            markIndices(toB + 1, toA);
+        }
+
+        private void markIndices(int from, int to) {
+            to = Math.min(to, data.length - 1);
+            if (fullRedraw || from > to) return;
+            for (int s = slotOf(from), last = slotOf(to); s <= last; s++) markSlot(s);
+        }
+
+        // One repaint per update, clipped to the columns that changed
+        private void repaintPending() {
+            if (fullRedraw) {
+                repaint();
+                return;
+            }
+            if (pendingCount == 0) return;
+            int lo = Integer.MAX_VALUE;
+            int hi = Integer.MIN_VALUE;
+            for (int k = 0; k < pendingCount; k++) {
+                lo = Math.min(lo, pending[k]);
+                hi = Math.max(hi, pending[k]);
+            }
+            repaint(lo * barW, 0, (hi - lo + 1) * barW, getHeight());
         }
 
         @Override
         protected void paintComponent(Graphics g) {
-            super.paintComponent(g);
-            if (data == null || data.length == 0) return;
-
             int w = getWidth();
             int h = getHeight();
-            int n = data.length;
+            if (data == null || data.length == 0 || w <= 0 || h <= 0) {
+                super.paintComponent(g);
+                return;
+            }
 
-            int max = 1;
-            for (int v : data) max = Math.max(max, v);
+            SortEvents.ChartPaintEvent event = new SortEvents.ChartPaintEvent();
+            event.begin();
+
+            if (updateLayout()) fullRedraw = true;
+            if (buffer == null || buffer.getWidth() != w || buffer.getHeight() != h) {
+                buffer = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+                fullRedraw = true;
+            }
 
-            int barW = Math.max(1, w / n);
+            if (fullRedraw) clearPending();
+            if (columns) {
+                if (fullRedraw) {
+                    for (int s = 0; s < slots; s++) summarize(s);
+                } else {
+                    for (int k = 0; k < pendingCount; k++) summarize(pending[k]);
+                }
+            }
 
-            for (int i = 0; i < n; i++) {
+            // a value above the cached max means the scale changed: redraw everything.
+            // A smaller max is ignored so the bars don't jump while values are being moved around
+            if (!fullRedraw) {
+                for (int k = 0; k < pendingCount; k++) {
+                    int s = pending[k];
+                    if ((columns ? colMax[s] : data[s]) > max) {
+                        fullRedraw = true;
+                        rescale = true;
+                        clearPending();
+                        break;
+                    }
+                }
+            }
+
+            int redrawn;
+            Graphics2D bg = buffer.createGraphics();
+            try {
+                if (fullRedraw) {
+                    if (rescale) {
+                        max = 1;
+                        if (columns) {
+                            for (int s = 0; s < slots; s++) max = Math.max(max, colMax[s]);
+                        } else {
+                            for (int v : data) max = Math.max(max, v);
+                        }
+                        rescale = false;
+                    }
+                    bg.setColor(getBackground());
+                    bg.fillRect(0, 0, w, h);
+                    for (int s = 0; s < slots; s++) drawSlot(bg, s, h, false);
+                    redrawn = slots;
+                } else {
+                    for (int k = 0; k < pendingCount; k++) drawSlot(bg, pending[k], h, true);
+                    redrawn = pendingCount;
+                }
+            } finally {
+                bg.dispose();
+            }
+            fullRedraw = false;
+            clearPending();
+
+            g.drawImage(buffer, 0, 0, null);
+
+            event.end();
+            if (event.shouldCommit()) {
+                event.bars = data.length;
+                event.redrawnBars = redrawn;
+                event.width = w;
+                event.height = h;
+                event.commit();
+            }
+        }
+
+        private void summarize(int s) {
+            int from = firstOf(s);
+            int to = firstOf(s + 1);
+            int lo = Integer.MAX_VALUE;
+            int hi = Integer.MIN_VALUE;
+            long sum = 0;
+            for (int i = from; i < to; i++) {
                 int v = data[i];
-                int barH = (int) ((v / (double) max) * (h * 0.90));
-                int x = i * barW;
-                int y = h - barH;
-
-                if (i == compareA || i == compareB) {
-                    g.setColor(Color.RED);
-                } else if (mergeRangeFrom >= 0 && mergeRangeTo >= 0 && i >= mergeRangeFrom && i <= mergeRangeTo) {
-                    g.setColor(new Color(80, 140, 255));
+                if (v < lo) lo = v;
+                if (v > hi) hi = v;
+                sum += v;
+            }
+            colMin[s] = lo;
+            colMax[s] = hi;
+            colSum[s] = sum;
+        }
+
+        private int heightOf(double v, int h) {
+            return (int) ((v / max) * (h * 0.90));
+        }
+
+        private boolean inRange(int from, int to) {
+            return mergeRangeFrom >= 0 && mergeRangeTo >= 0 && from <= mergeRangeTo && to >= mergeRangeFrom;
+        }
+
+        private boolean highlighted(int from, int to) {
+            return (compareA >= from && compareA <= to) || (compareB >= from && compareB <= to);
+        }
+
+        private void drawSlot(Graphics2D g, int s, int h, boolean clear) {
+            int x = s * barW;
+            if (clear) {
+                g.setColor(getBackground());
+                g.fillRect(x, 0, barW, h);
+            }
+
+            if (!columns) {
+                int barH = heightOf(data[s], h);
+                if (highlighted(s, s)) {
+                    g.setColor(HIGHLIGHT);
+                } else if (inRange(s, s)) {
+                    g.setColor(RANGE);
                 } else {
-                    g.setColor(Color.GRAY);
+                    g.setColor(BAR);
                 }
+                g.fillRect(x, h - barH, barW - 1, barH);
+                return;
+            }
 
-                g.fillRect(x, y, barW - 1, barH);
+            int from = firstOf(s);
+            int to = firstOf(s + 1) - 1;
+            int minH = heightOf(colMin[s], h);
+            int maxH = heightOf(colMax[s], h);
+            int meanH = heightOf(colSum[s] / (double) (to - from + 1), h);
+            if (highlighted(from, to)) {
+                g.setColor(HIGHLIGHT);
+                g.fillRect(x, h - maxH, 1, maxH);
+                return;
             }
+            boolean range = inRange(from, to);
+            g.setColor(range ? RANGE : BAR);
+            g.fillRect(x, h - minH, 1, minH);
+            g.setColor(range ? RANGE_SPREAD : BAR_SPREAD);
+            g.fillRect(x, h - maxH, 1, maxH - minH);
+            g.setColor(range ? RANGE_MEAN : BAR_MEAN);
+            g.fillRect(x, h - meanH - 1, 1, 1);
         }
     }
 }
@@ -0,0 +1,31 @@
+/**
+ * 途中経過を「必要な分だけ」作る再開可能なカーソル
+ * - next(sink) を呼ぶたびに 1 ステップだけ進め、sink に流す
+ * - 全ステップを先に作らないので、最初の描画までの時間とメモリが総ステップ数に依存しない
+ */
+public interface StepCursor {
+
+    boolean hasNext();
+
+    /**
+     * 1 ステップだけ進める（hasNext() が true のときだけ呼ぶ）
+     */
+    void next(StepSink sink);
+
+    /**
+     * 総ステップ数の見積もり（再生速度の配分用。正確でなくてよい）
+     */
+    long estimatedSteps();
+
+    /**
+     * 最大 maxSteps ステップ進める。実際に進めたステップ数を返す
+     */
+    default int advance(StepSink sink, int maxSteps) {
+        int count = 0;
+        while (count < maxSteps && hasNext()) {
+            next(sink);
+            count++;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,18 @@
+/**
+ * ステップ（操作）の受け取り先
+ * - StepTimeline : 記録する
+ * - StepState    : その場で配列・強調表示・回数に反映する
+ *
+ * 操作の回数（OpCounter）
+ * - compare(a, b)（a が 0 以上で a != b）・swap(a, b)（a != b）・write・read はそれぞれ1回として数える
+ *   compare(i, -1) は配列の外の値（探索中のキーなど）との比較として数える
+ * - 強調を消すだけの compare(-1, -1) や同じ位置どうしの compare(i, i) は数えない
+ * - ステップとして見せない操作（作業用バッファへのコピー・値との比較など）は OpCounter のメソッドで別に渡す
+ */
+public interface StepSink extends OpCounter {
+    void compare(int a, int b);
+    void swap(int a, int b);
+    void write(int index, int value);
+    void read(int index);
+    void range(int from, int to);
+}
@@ -1,6 +1,28 @@
-import java.util.List;
-
 public interface StepSortable extends Sorter {
     String name();
-    List<SortStep> steps(int[] input);
+
+    /**
+     * 途中経過を少しずつ取り出すカーソル（GUI再生用）
+     */
+    StepCursor cursor(int[] input);
+
+    /**
+     * 全ステップを最初から最後まで sink に流す（途中で止めたいときは sink から非チェック例外を投げる）
+     * 既定はカーソルを最後まで回す。再帰のまま記録するソートはここを上書きし、cursor は記録したものを流す
+     */
+    default void record(int[] input, StepSink sink) {
+        StepCursor cursor = cursor(input);
+        while (cursor.hasNext()) {
+            cursor.advance(sink, Integer.MAX_VALUE);
+        }
+    }
+
+    /**
+     * 全ステップをまとめて記録したいとき用
+     */
+    default StepTimeline steps(int[] input) {
+        StepTimeline timeline = new StepTimeline(input);
+        record(input, timeline);
+        return timeline;
+    }
 }
@@ -0,0 +1,126 @@
+import java.util.function.IntConsumer;
+
+/**
+ * ある時点の「表示状態」
+ * - data             : 配列
+ * - compareA/B       : 強調表示しているインデックス
+ * - rangeL/R         : 注目範囲
+ * - compares/swaps/reads/writes : そこまでの操作の回数（OpCounts、数え方は StepSink を参照）
+ * ステップを受け取る（StepSink）とその場で更新される
+ * trackChanges を呼ぶと、data を書き換えた位置も覚える（表示を変わったところだけ描き直す用）
+ */
+public class StepState extends OpCounts implements StepSink {
+    public final int[] data;
+    public int compareA = -1;
+    public int compareB = -1;
+    public int rangeL = -1;
+    public int rangeR = -1;
+
+    // 書き換えた位置（trackChanges を呼んだときだけ）。入りきらなくなったら allChanged にする
+    private int[] changed;
+    private int changedCount = 0;
+    private boolean allChanged = false;
+
+    public StepState(int[] input) {
+        this.data = input.clone();
+    }
+
+    public StepState copy() {
+        StepState c = new StepState(data);
+        c.copyMarksFrom(this);
+        return c;
+    }
+
+    /**
+     * 同じ長さの状態を丸ごと写す（キーフレームからの復元用）
+     */
+    public void copyFrom(StepState other) {
+        System.arraycopy(other.data, 0, data, 0, data.length);
+        copyMarksFrom(other);
+        allChanged = true;
+    }
+
+    /**
+     * 以後 data を書き換えた位置を覚える（最大 capacity 個。超えたら「全部変わった」として扱う）
+     */
+    public void trackChanges(int capacity) {
+        changed = new int[Math.max(1, capacity)];
+        changedCount = 0;
+        allChanged = true;
+    }
+
+    /**
+     * 前回から書き換えた位置を action に渡して忘れる（同じ位置が何度か来ることがある）
+     * 全部変わった（または trackChanges していない）ときは何も渡さずに false を返す
+     */
+    public boolean drainChanges(IntConsumer action) {
+        boolean all = changed == null || allChanged;
+        if (!all) {
+            for (int i = 0; i < changedCount; i++) action.accept(changed[i]);
+        }
+        changedCount = 0;
+        allChanged = false;
+        return !all;
+    }
+
+    private void markChanged(int index) {
+        if (changed == null || allChanged) return;
+        if (changedCount == changed.length) {
+            allChanged = true;
+            return;
+        }
+        changed[changedCount++] = index;
+    }
+
+    private void copyMarksFrom(StepState other) {
+        compareA = other.compareA;
+        compareB = other.compareB;
+        rangeL = other.rangeL;
+        rangeR = other.rangeR;
+        compares = other.compares;
+        swaps = other.swaps;
+        reads = other.reads;
+        writes = other.writes;
+    }
+
+    @Override
+    public void compare(int a, int b) {
+        compareA = a;
+        compareB = b;
+        if (a >= 0 && a != b) compares++;
+    }
+
+    @Override
+    public void swap(int a, int b) {
+        int tmp = data[a];
+        data[a] = data[b];
+        data[b] = tmp;
+        compareA = a;
+        compareB = b;
+        if (a != b) swaps++;
+        markChanged(a);
+        markChanged(b);
+    }
+
+    @Override
+    public void write(int index, int value) {
+        data[index] = value;
+        compareA = index;
+        compareB = -1;
+        writes++;
+        markChanged(index);
+    }
+
+    @Override
+    public void read(int index) {
+        compareA = index;
+        compareB = -1;
+        reads++;
+    }
+
+    @Override
+    public void range(int from, int to) {
+        rangeL = from;
+        rangeR = to;
+    }
+}
@@ -0,0 +1,243 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * ソートの途中経過を「操作の列」としてコンパクトに記録するタイムライン
+ * - 1ステップは kind(1byte) + a + b の 9byte だけ（配列のコピーはしない）
+ * - keyframeInterval ステップごとに表示状態（StepState）のキーフレームを持つ
+ *   → 任意位置の状態は「直前のキーフレーム + 差分の再生」で O(keyframeInterval) で復元できる
+ *     （シーク・1ステップ戻る に使う）
+ * - ステップにならない操作の回数（OpCounter）は次のステップの直前に足すものとして、別の表に持つ
+ *   （作業用バッファへのコピーなど、来る回数はステップよりずっと少ない）
+ */
+public class StepTimeline implements StepSink {
+
+    static final int DEFAULT_KEYFRAME_INTERVAL = 1024;
+
+    private static final SortStep.Kind[] KINDS = SortStep.Kind.values();
+
+    private final int[] initial;
+    private final StepState work;             // 記録中の最新状態（キーフレーム作成用）
+    private final int keyframeInterval;
+    private final List<StepState> keyframes = new ArrayList<>();   // keyframes[k] = ステップ k*interval 直前の状態
+
+    private byte[] kinds = new byte[64];
+    private int[] as = new int[64];
+    private int[] bs = new int[64];
+    private int size = 0;
+
+    // 回数の表: extraAt[e] 番目のステップの直前に extra[e*4 .. e*4+3]（compares, swaps, reads, writes）を足す
+    // extraAt は昇順。最後のステップより後に来た回数（extraAt == size）は最後のステップと一緒に足す
+    private int[] extraAt = new int[8];
+    private long[] extra = new long[8 * 4];
+    private int extras = 0;
+
+    public StepTimeline(int[] input) {
+        // キーフレームの総量がステップ本体より大きくならないように、間隔は n 以上にする
+        this(input, Math.max(DEFAULT_KEYFRAME_INTERVAL, input.length));
+    }
+
+    public StepTimeline(int[] input, int keyframeInterval) {
+        if (keyframeInterval <= 0) throw new IllegalArgumentException("keyframeInterval must be positive");
+        this.initial = input.clone();
+        this.work = new StepState(input);
+        this.keyframeInterval = keyframeInterval;
+    }
+
+    // ---------------- 記録（アルゴリズム側が呼ぶ） ----------------
+
+    @Override
+    public void compare(int a, int b) {
+        add(SortStep.Kind.COMPARE, a, b);
+    }
+
+    @Override
+    public void swap(int a, int b) {
+        add(SortStep.Kind.SWAP, a, b);
+    }
+
+    @Override
+    public void write(int index, int value) {
+        add(SortStep.Kind.WRITE, index, value);
+    }
+
+    @Override
+    public void read(int index) {
+        add(SortStep.Kind.READ, index, 0);
+    }
+
+    @Override
+    public void range(int from, int to) {
+        add(SortStep.Kind.RANGE, from, to);
+    }
+
+    @Override
+    public void compares(long n) {
+        addCount(0, n);
+    }
+
+    @Override
+    public void swaps(long n) {
+        addCount(1, n);
+    }
+
+    @Override
+    public void reads(long n) {
+        addCount(2, n);
+    }
+
+    @Override
+    public void writes(long n) {
+        addCount(3, n);
+    }
+
+    private void addCount(int which, long n) {
+        if (n == 0) return;
+        int at = size;
+        if (extras == 0 || extraAt[extras - 1] != at) {
+            if (extras == extraAt.length) {
+                extraAt = Arrays.copyOf(extraAt, extras * 2);
+                extra = Arrays.copyOf(extra, extras * 2 * 4);
+            }
+            extraAt[extras++] = at;
+        }
+        extra[(extras - 1) * 4 + which] += n;
+        applyCount(which, n, work);
+    }
+
+    private static void applyCount(int which, long n, OpCounter counter) {
+        switch (which) {
+            case 0 -> counter.compares(n);
+            case 1 -> counter.swaps(n);
+            case 2 -> counter.reads(n);
+            default -> counter.writes(n);
+        }
+    }
+
+    // index 番目のステップの直前の回数を流す（e は extraAt の中で index 以上の最初の位置）。次の e を返す
+    private int applyExtras(int e, int index, OpCounter counter) {
+        while (e < extras && extraAt[e] == index) {
+            for (int w = 0; w < 4; w++) {
+                long n = extra[e * 4 + w];
+                if (n != 0) applyCount(w, n, counter);
+            }
+            e++;
+        }
+        return e;
+    }
+
+    // extraAt の中で index 以上の最初の位置
+    private int firstExtra(int index) {
+        int lo = 0, hi = extras;
+        while (lo < hi) {
+            int m = (lo + hi) >>> 1;
+            if (extraAt[m] < index) lo = m + 1; else hi = m;
+        }
+        return lo;
+    }
+
+    private void add(SortStep.Kind kind, int a, int b) {
+        if (size % keyframeInterval == 0) {
+            keyframes.add(work.copy());
+        }
+        if (size == kinds.length) {
+            int cap = kinds.length * 2;
+            kinds = Arrays.copyOf(kinds, cap);
+            as = Arrays.copyOf(as, cap);
+            bs = Arrays.copyOf(bs, cap);
+        }
+        kinds[size] = (byte) kind.ordinal();
+        as[size] = a;
+        bs[size] = b;
+        size++;
+        SortStep.apply(kind, a, b, work);
+    }
+
+    // ---------------- 参照（GUI側が呼ぶ） ----------------
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public SortStep get(int index) {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException(index);
+        return new SortStep(KINDS[kinds[index]], as[index], bs[index]);
+    }
+
+    /**
+     * 再生開始時の配列（コピー）
+     */
+    public int[] initialData() {
+        return initial.clone();
+    }
+
+    public int keyframeInterval() {
+        return keyframeInterval;
+    }
+
+    /**
+     * 記録済みのステップを先頭から順に流すカーソル
+     * （再帰で書いたアルゴリズムを先に記録しておき、GUI には少しずつ渡したいとき用）
+     */
+    public StepCursor cursor() {
+        return new StepCursor() {
+            private int pos = 0;
+            private int e = 0;
+
+            @Override
+            public boolean hasNext() {
+                return pos < size;
+            }
+
+            @Override
+            public void next(StepSink sink) {
+                if (pos >= size) throw new IllegalStateException("no more steps");
+                e = applyExtras(e, pos, sink);
+                SortStep.apply(KINDS[kinds[pos]], as[pos], bs[pos], sink);
+                pos++;
+                if (pos == size) e = applyExtras(e, pos, sink);     // 最後のステップより後の回数
+            }
+
+            @Override
+            public long estimatedSteps() {
+                return size;
+            }
+        };
+    }
+
+    /**
+     * index 番目のステップ（とその直前の回数、最後のステップならその後の回数も）を state に反映する（順方向の再生用）
+     */
+    public void apply(int index, StepState state) {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException(index);
+        int e = extras > 0 ? applyExtras(firstExtra(index), index, state) : 0;
+        SortStep.apply(KINDS[kinds[index]], as[index], bs[index], state);
+        if (index == size - 1) applyExtras(e, size, state);
+    }
+
+    /**
+     * 先頭から count ステップ適用した後の状態を out に復元する
+     * 直前のキーフレームから再生するので、コストは O(n + keyframeInterval)
+     */
+    public void seek(int count, StepState out) {
+        if (count < 0 || count > size) throw new IndexOutOfBoundsException(count);
+        if (keyframes.isEmpty()) {
+            out.copyFrom(new StepState(initial));
+            return;
+        }
+        // キーフレームは「その直前の回数」を足したあとに作っているので、そこは足さない
+        int k = Math.min(count / keyframeInterval, keyframes.size() - 1);
+        out.copyFrom(keyframes.get(k));
+        int e = firstExtra(k * keyframeInterval + 1);
+        for (int i = k * keyframeInterval; i < count; i++) {
+            if (i > k * keyframeInterval) e = applyExtras(e, i, out);
+            SortStep.apply(KINDS[kinds[i]], as[i], bs[i], out);
+        }
+        if (count == size) applyExtras(e, size, out);
+    }
+}
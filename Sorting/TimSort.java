@@ -0,0 +1,613 @@
+/**
+ * Tim Sort（自然な「すでに並んでいる区間（run）」を見つけて merge する適応型ソート）
+ * - 左から run を探す（狭義の降順 run は反転して昇順にする）
+ * - run が minRun より短ければ、二分挿入ソートで minRun まで伸ばす
+ * - run はスタックに積み、長さの不変条件（下の run ほど長い）を保つように merge する
+ * - merge 中に片方の run から連続して取る回数が多くなったら galloping（指数探索）に切り替える
+ * - ほぼソート済みの入力では run が長くなり、O(n) に近づく
+ */
+public class TimSort implements StepSortable {
+
+    private static final int MIN_MERGE = 32;
+    private static final int MIN_GALLOP = 7;
+    private static final int MAX_STACK = 49;     // int の長さなら run スタックはこれで足りる
+
+    @Override
+    public String name() {
+        return "Tim Sort";
+    }
+
+    @Override
+    public void sort(int[] arr) {
+        sort(arr, OpCounter.NONE);
+    }
+
+    @Override
+    public void sort(int[] arr, OpCounter counter) {
+        if (arr.length <= 1) return;
+        Merger m = new Merger(arr);
+        m.sort();
+        counter.compares(m.compares);
+        counter.swaps(m.swaps);
+        counter.writes(m.writes);
+    }
+
+    // ---------------- GUI用 ----------------
+
+    @Override
+    public StepCursor cursor(int[] input) {
+        return SortEvents.steps(this, input).cursor();
+    }
+
+    /**
+     * sort と同じ処理を、記録先つきで1回走らせる
+     * - range      : 見つけた run / 伸ばしている run / merge している2つの run
+     * - compare    : run 探し・二分探索・galloping・merge の比較
+     * - swap/write : 反転、挿入のずらし、merge の書き込み
+     */
+    @Override
+    public void record(int[] input, StepSink steps) {
+        int[] arr = input.clone();
+        if (arr.length <= 1) return;
+
+        new Recorder(arr, steps).sort();
+
+        steps.range(-1, -1);
+        steps.compare(-1, -1);
+    }
+
+    /**
+     * 1回のソートの状態（run スタック・作業用配列・minGallop）
+     * on〜 は記録用のフックで、ここでは回数を数えるだけ（Recorder が上書きする）
+     */
+    private static class Merger {
+        final int[] a;
+
+        long compares = 0;
+        long swaps = 0;
+        long writes = 0;
+
+        private int minGallop = MIN_GALLOP;
+        private int[] tmp = new int[0];
+        private int tmpOrigin = 0;          // tmp[0] が元いた位置（表示用）
+
+        private final int[] runBase = new int[MAX_STACK];
+        private final int[] runLen = new int[MAX_STACK];
+        private int stackSize = 0;
+
+        Merger(int[] a) {
+            this.a = a;
+        }
+
+        void sort() {
+            int lo = 0;
+            int hi = a.length;
+            int remaining = hi - lo;
+
+            if (remaining < MIN_MERGE) {
+                int initRunLen = countRunAndMakeAscending(lo, hi);
+                binarySort(lo, hi, lo + initRunLen);
+                return;
+            }
+
+            int minRun = minRunLength(remaining);
+            do {
+                int len = countRunAndMakeAscending(lo, hi);
+
+                if (len < minRun) {
+                    int force = Math.min(remaining, minRun);
+                    binarySort(lo, lo + force, lo + len);
+                    len = force;
+                }
+
+                pushRun(lo, len);
+                mergeCollapse();
+
+                lo += len;
+                remaining -= len;
+            } while (remaining != 0);
+
+            mergeForceCollapse();
+        }
+
+        // ---------------- run ----------------
+
+        private static int minRunLength(int n) {
+            int r = 0;
+            while (n >= MIN_MERGE) {
+                r |= (n & 1);
+                n >>= 1;
+            }
+            return n + r;
+        }
+
+        /**
+         * lo から始まる run の長さを返す（狭義の降順なら反転して昇順にする）
+         */
+        private int countRunAndMakeAscending(int lo, int hi) {
+            int runHi = lo + 1;
+            if (runHi == hi) return 1;
+
+            onCompare(runHi, lo);
+            if (a[runHi++] < a[lo]) {
+                while (runHi < hi) {
+                    onCompare(runHi, runHi - 1);
+                    if (a[runHi] >= a[runHi - 1]) break;
+                    runHi++;
+                }
+                reverseRange(lo, runHi);
+            } else {
+                while (runHi < hi) {
+                    onCompare(runHi, runHi - 1);
+                    if (a[runHi] < a[runHi - 1]) break;
+                    runHi++;
+                }
+            }
+
+            onRange(lo, runHi - 1);
+            return runHi - lo;
+        }
+
+        private void reverseRange(int lo, int hi) {
+            hi--;
+            while (lo < hi) {
+                int t = a[lo];
+                a[lo] = a[hi];
+                a[hi] = t;
+                onSwap(lo, hi);
+                lo++;
+                hi--;
+            }
+        }
+
+        /**
+         * a[lo, start) がソート済みのとき、a[start, hi) を二分探索で挿入していく
+         */
+        private void binarySort(int lo, int hi, int start) {
+            if (start == lo) start++;
+            if (start < hi) onRange(lo, hi - 1);
+
+            for (; start < hi; start++) {
+                int pivot = a[start];
+
+                int left = lo;
+                int right = start;
+                while (left < right) {
+                    int mid = (left + right) >>> 1;
+                    onCompare(mid, start);
+                    if (pivot < a[mid]) {
+                        right = mid;
+                    } else {
+                        left = mid + 1;
+                    }
+                }
+
+                int n = start - left;
+                if (n > 0) {
+                    copyIn(a, left, left + 1, n);
+                    put(left, pivot);
+                }
+            }
+        }
+
+        // ---------------- run スタック ----------------
+
+        private void pushRun(int base, int len) {
+            runBase[stackSize] = base;
+            runLen[stackSize] = len;
+            stackSize++;
+        }
+
+        /**
+         * 不変条件を保つまで merge する
+         *   runLen[i-2] > runLen[i-1] + runLen[i]  かつ  runLen[i-1] > runLen[i]
+         */
+        private void mergeCollapse() {
+            while (stackSize > 1) {
+                int n = stackSize - 2;
+                if (n > 0 && runLen[n - 1] <= runLen[n] + runLen[n + 1]
+                        || n > 1 && runLen[n - 2] <= runLen[n] + runLen[n - 1]) {
+                    if (runLen[n - 1] < runLen[n + 1]) n--;
+                } else if (runLen[n] > runLen[n + 1]) {
+                    break;
+                }
+                mergeAt(n);
+            }
+        }
+
+        private void mergeForceCollapse() {
+            while (stackSize > 1) {
+                int n = stackSize - 2;
+                if (n > 0 && runLen[n - 1] < runLen[n + 1]) n--;
+                mergeAt(n);
+            }
+        }
+
+        /**
+         * スタックの i 番目と i+1 番目の run を merge する
+         */
+        private void mergeAt(int i) {
+            int base1 = runBase[i];
+            int len1 = runLen[i];
+            int base2 = runBase[i + 1];
+            int len2 = runLen[i + 1];
+
+            runLen[i] = len1 + len2;
+            if (i == stackSize - 3) {
+                runBase[i + 1] = runBase[i + 2];
+                runLen[i + 1] = runLen[i + 2];
+            }
+            stackSize--;
+
+            onRange(base1, base2 + len2 - 1);
+
+            // run1 の先頭側で run2[0] 以下の部分はすでに正しい位置にある
+            int k = gallopRight(a[base2], a, base1, len1, 0);
+            base1 += k;
+            len1 -= k;
+            if (len1 == 0) return;
+
+            // run2 の末尾側で run1 の最後より大きい部分も正しい位置にある
+            len2 = gallopLeft(a[base1 + len1 - 1], a, base2, len2, len2 - 1);
+            if (len2 == 0) return;
+
+            if (len1 <= len2) {
+                mergeLo(base1, len1, base2, len2);
+            } else {
+                mergeHi(base1, len1, base2, len2);
+            }
+        }
+
+        // ---------------- galloping ----------------
+
+        /**
+         * arr[base, base+len) の中で key を入れる位置（同じ値があればその左）を返す
+         * hint の位置から 1, 3, 7, ... と指数的に広げてから二分探索する
+         */
+        private int gallopLeft(int key, int[] arr, int base, int len, int hint) {
+            int lastOfs = 0;
+            int ofs = 1;
+            onCompare(origin(arr, base + hint), -1);
+            if (key > arr[base + hint]) {
+                int maxOfs = len - hint;
+                while (ofs < maxOfs) {
+                    onCompare(origin(arr, base + hint + ofs), -1);
+                    if (key <= arr[base + hint + ofs]) break;
+                    lastOfs = ofs;
+                    ofs = (ofs << 1) + 1;
+                    if (ofs <= 0) ofs = maxOfs;
+                }
+                if (ofs > maxOfs) ofs = maxOfs;
+                lastOfs += hint;
+                ofs += hint;
+            } else {
+                int maxOfs = hint + 1;
+                while (ofs < maxOfs) {
+                    onCompare(origin(arr, base + hint - ofs), -1);
+                    if (key > arr[base + hint - ofs]) break;
+                    lastOfs = ofs;
+                    ofs = (ofs << 1) + 1;
+                    if (ofs <= 0) ofs = maxOfs;
+                }
+                if (ofs > maxOfs) ofs = maxOfs;
+                int t = lastOfs;
+                lastOfs = hint - ofs;
+                ofs = hint - t;
+            }
+
+            lastOfs++;
+            while (lastOfs < ofs) {
+                int m = lastOfs + ((ofs - lastOfs) >>> 1);
+                onCompare(origin(arr, base + m), -1);
+                if (key > arr[base + m]) {
+                    lastOfs = m + 1;
+                } else {
+                    ofs = m;
+                }
+            }
+            return ofs;
+        }
+
+        /**
+         * gallopLeft と同じだが、同じ値があればその右の位置を返す
+         */
+        private int gallopRight(int key, int[] arr, int base, int len, int hint) {
+            int ofs = 1;
+            int lastOfs = 0;
+            onCompare(origin(arr, base + hint), -1);
+            if (key < arr[base + hint]) {
+                int maxOfs = hint + 1;
+                while (ofs < maxOfs) {
+                    onCompare(origin(arr, base + hint - ofs), -1);
+                    if (key >= arr[base + hint - ofs]) break;
+                    lastOfs = ofs;
+                    ofs = (ofs << 1) + 1;
+                    if (ofs <= 0) ofs = maxOfs;
+                }
+                if (ofs > maxOfs) ofs = maxOfs;
+                int t = lastOfs;
+                lastOfs = hint - ofs;
+                ofs = hint - t;
+            } else {
+                int maxOfs = len - hint;
+                while (ofs < maxOfs) {
+                    onCompare(origin(arr, base + hint + ofs), -1);
+                    if (key < arr[base + hint + ofs]) break;
+                    lastOfs = ofs;
+                    ofs = (ofs << 1) + 1;
+                    if (ofs <= 0) ofs = maxOfs;
+                }
+                if (ofs > maxOfs) ofs = maxOfs;
+                lastOfs += hint;
+                ofs += hint;
+            }
+
+            lastOfs++;
+            while (lastOfs < ofs) {
+                int m = lastOfs + ((ofs - lastOfs) >>> 1);
+                onCompare(origin(arr, base + m), -1);
+                if (key < arr[base + m]) {
+                    ofs = m;
+                } else {
+                    lastOfs = m + 1;
+                }
+            }
+            return ofs;
+        }
+
+        // ---------------- merge ----------------
+
+        /**
+         * run1 が短いとき: run1 を tmp に退避して、左から埋めていく
+         */
+        private void mergeLo(int base1, int len1, int base2, int len2) {
+            int[] t = ensureCapacity(len1);
+            System.arraycopy(a, base1, t, 0, len1);
+            onStash(len1);
+            tmpOrigin = base1;
+
+            int cursor1 = 0;
+            int cursor2 = base2;
+            int dest = base1;
+
+            put(dest++, a[cursor2++]);
+            if (--len2 == 0) {
+                copyIn(t, cursor1, dest, len1);
+                return;
+            }
+            if (len1 == 1) {
+                copyIn(a, cursor2, dest, len2);
+                put(dest + len2, t[cursor1]);
+                return;
+            }
+
+            int mg = minGallop;
+            outer:
+            while (true) {
+                int count1 = 0;     // run1 から連続で取った回数
+                int count2 = 0;     // run2 から連続で取った回数
+
+                // 1つずつ比べる通常の merge
+                do {
+                    onCompare(cursor2, tmpOrigin + cursor1);
+                    if (a[cursor2] < t[cursor1]) {
+                        put(dest++, a[cursor2++]);
+                        count2++;
+                        count1 = 0;
+                        if (--len2 == 0) break outer;
+                    } else {
+                        put(dest++, t[cursor1++]);
+                        count1++;
+                        count2 = 0;
+                        if (--len1 == 1) break outer;
+                    }
+                } while ((count1 | count2) < mg);
+
+                // 片方が連続して勝っているので galloping でまとめて運ぶ
+                do {
+                    count1 = gallopRight(a[cursor2], t, cursor1, len1, 0);
+                    if (count1 != 0) {
+                        copyIn(t, cursor1, dest, count1);
+                        dest += count1;
+                        cursor1 += count1;
+                        len1 -= count1;
+                        if (len1 <= 1) break outer;
+                    }
+                    put(dest++, a[cursor2++]);
+                    if (--len2 == 0) break outer;
+
+                    count2 = gallopLeft(t[cursor1], a, cursor2, len2, 0);
+                    if (count2 != 0) {
+                        copyIn(a, cursor2, dest, count2);
+                        dest += count2;
+                        cursor2 += count2;
+                        len2 -= count2;
+                        if (len2 == 0) break outer;
+                    }
+                    put(dest++, t[cursor1++]);
+                    if (--len1 == 1) break outer;
+                    mg--;
+                } while (count1 >= MIN_GALLOP | count2 >= MIN_GALLOP);
+
+                if (mg < 0) mg = 0;
+                mg += 2;    // galloping をやめたので、次に入りにくくする
+            }
+            minGallop = Math.max(1, mg);
+
+            if (len1 == 1) {
+                copyIn(a, cursor2, dest, len2);
+                put(dest + len2, t[cursor1]);
+            } else {
+                copyIn(t, cursor1, dest, len1);
+            }
+        }
+
+        /**
+         * run2 が短いとき: run2 を tmp に退避して、右から埋めていく
+         */
+        private void mergeHi(int base1, int len1, int base2, int len2) {
+            int[] t = ensureCapacity(len2);
+            System.arraycopy(a, base2, t, 0, len2);
+            onStash(len2);
+            tmpOrigin = base2;
+
+            int cursor1 = base1 + len1 - 1;
+            int cursor2 = len2 - 1;
+            int dest = base2 + len2 - 1;
+
+            put(dest--, a[cursor1--]);
+            if (--len1 == 0) {
+                copyIn(t, 0, dest - (len2 - 1), len2);
+                return;
+            }
+            if (len2 == 1) {
+                dest -= len1;
+                cursor1 -= len1;
+                copyIn(a, cursor1 + 1, dest + 1, len1);
+                put(dest, t[cursor2]);
+                return;
+            }
+
+            int mg = minGallop;
+            outer:
+            while (true) {
+                int count1 = 0;
+                int count2 = 0;
+
+                do {
+                    onCompare(cursor1, tmpOrigin + cursor2);
+                    if (t[cursor2] < a[cursor1]) {
+                        put(dest--, a[cursor1--]);
+                        count1++;
+                        count2 = 0;
+                        if (--len1 == 0) break outer;
+                    } else {
+                        put(dest--, t[cursor2--]);
+                        count2++;
+                        count1 = 0;
+                        if (--len2 == 1) break outer;
+                    }
+                } while ((count1 | count2) < mg);
+
+                do {
+                    count1 = len1 - gallopRight(t[cursor2], a, base1, len1, len1 - 1);
+                    if (count1 != 0) {
+                        dest -= count1;
+                        cursor1 -= count1;
+                        len1 -= count1;
+                        copyIn(a, cursor1 + 1, dest + 1, count1);
+                        if (len1 == 0) break outer;
+                    }
+                    put(dest--, t[cursor2--]);
+                    if (--len2 == 1) break outer;
+
+                    count2 = len2 - gallopLeft(a[cursor1], t, 0, len2, len2 - 1);
+                    if (count2 != 0) {
+                        dest -= count2;
+                        cursor2 -= count2;
+                        len2 -= count2;
+                        copyIn(t, cursor2 + 1, dest + 1, count2);
+                        if (len2 <= 1) break outer;
+                    }
+                    put(dest--, a[cursor1--]);
+                    if (--len1 == 0) break outer;
+                    mg--;
+                } while (count1 >= MIN_GALLOP | count2 >= MIN_GALLOP);
+
+                if (mg < 0) mg = 0;
+                mg += 2;
+            }
+            minGallop = Math.max(1, mg);
+
+            if (len2 == 1) {
+                dest -= len1;
+                cursor1 -= len1;
+                copyIn(a, cursor1 + 1, dest + 1, len1);
+                put(dest, t[cursor2]);
+            } else {
+                copyIn(t, 0, dest - (len2 - 1), len2);
+            }
+        }
+
+        private int[] ensureCapacity(int minCapacity) {
+            if (tmp.length < minCapacity) {
+                // 足りなくなるたびに2倍（ただし n/2 を超えない。merge で退避するのは短いほうだけ）
+                int cap = Math.max(minCapacity, Math.min(Math.max(256, tmp.length * 2), a.length >>> 1));
+                tmp = new int[cap];
+            }
+            return tmp;
+        }
+
+        // ---------------- 配列の変更・比較 ----------------
+
+        private void put(int index, int value) {
+            a[index] = value;
+            onWrite(index, 1);
+        }
+
+        private void copyIn(int[] src, int srcPos, int destPos, int len) {
+            System.arraycopy(src, srcPos, a, destPos, len);
+            onWrite(destPos, len);
+        }
+
+        // galloping の探索位置を表示上の位置にする（tmp の中なら元いた位置）
+        private int origin(int[] arr, int index) {
+            return arr == a ? index : tmpOrigin + index;
+        }
+
+        void onCompare(int i, int j) {
+            compares++;
+        }
+
+        void onSwap(int i, int j) {
+            swaps++;
+        }
+
+        void onWrite(int from, int len) {       // a[from, from+len) を書き換えた
+            writes += len;
+        }
+
+        void onStash(int len) {                 // tmp に len 個退避した（表示はしない）
+            writes += len;
+        }
+
+        void onRange(int from, int to) {}
+    }
+
+    /**
+     * steps 用: Merger のフックをすべて sink に流す
+     */
+    private static final class Recorder extends Merger {
+        private final StepSink sink;
+
+        Recorder(int[] a, StepSink sink) {
+            super(a);
+            this.sink = sink;
+        }
+
+        @Override
+        void onCompare(int i, int j) {
+            sink.compare(i, j);
+        }
+
+        @Override
+        void onSwap(int i, int j) {
+            sink.swap(i, j);
+        }
+
+        @Override
+        void onWrite(int from, int len) {
+            for (int k = from; k < from + len; k++) sink.write(k, a[k]);
+        }
+
+        @Override
+        void onStash(int len) {
+            sink.writes(len);
+        }
+
+        @Override
+        void onRange(int from, int to) {
+            sink.range(from, to);
+        }
+    }
+}